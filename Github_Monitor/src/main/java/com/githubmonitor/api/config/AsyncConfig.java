@@ -0,0 +1,64 @@
+package com.githubmonitor.api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+@Slf4j
+public class AsyncConfig {
+
+    // Declaring our own executors disables Boot's default one, which MVC uses for StreamingResponseBody and async requests
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @Primary
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Background GitHub diff fetches: single low priority thread, excess work is dropped rather than queued forever
+    @Bean(name = "diffPrefetchExecutor")
+    public Executor diffPrefetchExecutor(@Value("${app.diff-prefetch.queue-capacity:500}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setThreadNamePrefix("diff-prefetch-");
+        executor.setRejectedExecutionHandler((task, pool) -> log.debug("Diff prefetch queue full, dropping task"));
+        executor.initialize();
+        return executor;
+    }
+
+    // Dashboard exports: a few workers with a short queue, submissions beyond that are rejected with 503
+    @Bean(name = "exportExecutor")
+    public Executor exportExecutor(@Value("${app.export.concurrency:2}") int concurrency,
+                                   @Value("${app.export.queue-capacity:10}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("export-");
+        executor.initialize();
+        return executor;
+    }
+
+    // Notification delivery: rows stay PENDING in the notifications table when the queue is full and are picked up by the poller
+    @Bean(name = "notificationExecutor")
+    public Executor notificationExecutor(@Value("${app.notifications.concurrency:2}") int concurrency,
+                                         @Value("${app.notifications.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-");
+        executor.setRejectedExecutionHandler((task, pool) -> log.debug("Notification queue full, leaving delivery to the poller"));
+        executor.initialize();
+        return executor;
+    }
+}
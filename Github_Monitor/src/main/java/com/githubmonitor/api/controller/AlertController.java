@@ -2,13 +2,19 @@ package com.githubmonitor.api.controller;
 
 import com.githubmonitor.api.dto.AlertDTO;
 import com.githubmonitor.api.service.AlertService;
+import com.githubmonitor.api.service.DataExportService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @RestController
@@ -17,6 +23,7 @@ import java.util.UUID;
 public class AlertController {
 
     private final AlertService alertService;
+    private final DataExportService dataExportService;
 
     @GetMapping
     public ResponseEntity<Page<AlertDTO>> findAll(
@@ -30,4 +37,26 @@ public class AlertController {
         alertService.resolveAlert(id);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAlerts(
+            @RequestParam(required = false) UUID repositoryId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        DataExportService.Format exportFormat = DataExportService.Format.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> dataExportService.writeAlerts(repositoryId, start, end, exportFormat, gzip, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=alerts." + exportFormat.getExtension())
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
 }
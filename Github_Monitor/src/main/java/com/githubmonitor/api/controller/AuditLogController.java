@@ -1,15 +1,18 @@
 package com.githubmonitor.api.controller;
 
-import com.githubmonitor.api.dto.AuditLogDTO;
+import com.githubmonitor.api.dto.AuditLogPageDTO;
 import com.githubmonitor.api.service.AuditLogService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/audit-logs")
@@ -18,9 +21,18 @@ public class AuditLogController {
 
     private final AuditLogService auditLogService;
 
+    // Newest first, keyset paginated: pass the returned nextCursor as ?cursor= for the next page
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<AuditLogDTO>> getAllLogs() {
-        return ResponseEntity.ok(auditLogService.getAllLogs());
+    public ResponseEntity<AuditLogPageDTO> findLogs(
+            @RequestParam(required = false) UUID userId,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String resource,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+
+        return ResponseEntity.ok(auditLogService.findLogs(userId, action, resource, start, end, cursor, size));
     }
 }
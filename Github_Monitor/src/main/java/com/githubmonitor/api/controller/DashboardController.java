@@ -1,16 +1,25 @@
 package com.githubmonitor.api.controller;
 
+import com.githubmonitor.api.dto.DashboardSummaryDTO;
+import com.githubmonitor.api.dto.ExportJobDTO;
+import com.githubmonitor.api.dto.ExportRequestDTO;
 import com.githubmonitor.api.service.DashboardService;
+import com.githubmonitor.api.service.DashboardSummaryService;
+import com.githubmonitor.api.service.ExportJobService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -18,17 +27,53 @@ import java.time.format.DateTimeFormatter;
 public class DashboardController {
 
     private final DashboardService dashboardService;
+    private final ExportJobService exportJobService;
+    private final DashboardSummaryService dashboardSummaryService;
+
+    private static final MediaType XLSX = MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    @GetMapping("/summary")
+    public ResponseEntity<DashboardSummaryDTO> getSummary() {
+        return ResponseEntity.ok(dashboardSummaryService.getSummary());
+    }
 
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportDashboard() {
-        byte[] excelContent = dashboardService.generateExcelReport();
+    public ResponseEntity<StreamingResponseBody> exportDashboard() {
+        // Written straight to the response, the workbook is never buffered as a byte[]
+        ExportRequestDTO request = new ExportRequestDTO();
+        StreamingResponseBody body = out -> dashboardService.writeExcelReport(request, out, rows -> { });
 
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
         String filename = "github_monitor_dashboard_" + timestamp + ".xlsx";
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
-                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(excelContent);
+                .contentType(XLSX)
+                .body(body);
+    }
+
+    // Large exports: runs in the background, progress is pushed as export-progress frames on the requester's SSE streams
+    @PostMapping("/exports")
+    public ResponseEntity<ExportJobDTO> submitExport(@RequestBody(required = false) ExportRequestDTO request) {
+        ExportJobDTO job = exportJobService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/dashboard/exports/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/exports/{id}")
+    public ResponseEntity<ExportJobDTO> getExport(@PathVariable UUID id) {
+        return ResponseEntity.ok(exportJobService.getJob(id));
+    }
+
+    // Resource bodies get Range / 206 handling from Spring MVC, so interrupted downloads can resume
+    @GetMapping("/exports/{id}/download")
+    public ResponseEntity<Resource> downloadExport(@PathVariable UUID id) {
+        Path artifact = exportJobService.getArtifact(id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=github_monitor_export_" + id + ".xlsx")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(XLSX)
+                .body(new FileSystemResource(artifact));
     }
 }
@@ -1,23 +1,31 @@
 package com.githubmonitor.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.githubmonitor.api.dto.DiffFileDTO;
 import com.githubmonitor.api.dto.EventDTO;
+import com.githubmonitor.api.service.DataExportService;
 import com.githubmonitor.api.service.EventService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 import com.githubmonitor.api.service.SseService;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/events")
@@ -26,15 +34,59 @@ public class EventController {
 
     private final EventService eventService;
     private final SseService sseService;
+    private final ObjectMapper objectMapper;
+    private final DataExportService dataExportService;
 
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter streamEvents() {
-        return sseService.subscribe();
+    public SseEmitter streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam,
+            @RequestParam(required = false) Boolean batch) {
+        // Browsers send the header on automatic reconnects; the param covers clients that recreate the EventSource
+        return sseService.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam, batch);
+    }
+
+    // Same frames as /stream from a shared reactive sink. Still one servlet async request per connection with blocking
+    // writes, so it does not scale further than /stream; a client that stops reading holds an executor thread until
+    // Tomcat's write timeout (EventStreamSoakTest)
+    @GetMapping(value = "/stream/reactive", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamEventsReactive(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam,
+            @RequestParam(required = false) Boolean batch) {
+        return sseService.stream(lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam, batch);
     }
 
     @GetMapping("/{id}/diff")
-    public ResponseEntity<List<DiffFileDTO>> getEventDiff(@PathVariable UUID id) {
-        return ResponseEntity.ok(eventService.getEventDiff(id));
+    public ResponseEntity<List<DiffFileDTO>> getEventDiff(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "true") boolean patches) {
+        return ResponseEntity.ok(eventService.getEventDiff(id, patches));
+    }
+
+    // One DiffFileDTO per line, written as GitHub pages arrive so large PRs render progressively
+    @GetMapping(value = "/{id}/diff/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEventDiff(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "false") boolean patches) {
+        StreamingResponseBody body = out -> eventService.streamEventDiff(id, patches, file -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(file));
+                out.write('\n');
+                out.flush();
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/{id}/diff/file")
+    public ResponseEntity<DiffFileDTO> getEventDiffFile(@PathVariable UUID id, @RequestParam String filename) {
+        return ResponseEntity.ok(eventService.getEventDiffFile(id, filename));
     }
 
     @GetMapping
@@ -47,4 +99,28 @@ public class EventController {
         
         return ResponseEntity.ok(eventService.findAll(repositoryId, type, start, end, pageable));
     }
+
+    // Whole result set as NDJSON or CSV, read through a database cursor instead of offset pages
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @RequestParam(required = false) UUID repositoryId,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        DataExportService.Format exportFormat = DataExportService.Format.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> dataExportService.writeEvents(repositoryId, type, start, end, exportFormat, gzip, out);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=events." + exportFormat.getExtension())
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
 }
@@ -0,0 +1,49 @@
+package com.githubmonitor.api.controller;
+
+import com.githubmonitor.api.dto.FileContributorDTO;
+import com.githubmonitor.api.dto.FileTouchDTO;
+import com.githubmonitor.api.service.FileIndexService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/files")
+@RequiredArgsConstructor
+public class FileController {
+
+    private final FileIndexService fileIndexService;
+
+    // Pushes that touched the path (or everything under it with prefix=true), newest first
+    @GetMapping("/touches")
+    public ResponseEntity<List<FileTouchDTO>> findTouches(
+            @RequestParam String path,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(required = false) UUID repositoryId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        return ResponseEntity.ok(fileIndexService.findTouches(repositoryId, path, prefix, start, end, limit));
+    }
+
+    @GetMapping("/contributors")
+    public ResponseEntity<List<FileContributorDTO>> findContributors(
+            @RequestParam String path,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(required = false) UUID repositoryId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        return ResponseEntity.ok(fileIndexService.findContributors(repositoryId, path, prefix, start, end, limit));
+    }
+}
@@ -0,0 +1,26 @@
+package com.githubmonitor.api.controller;
+
+import com.githubmonitor.api.dto.RateLimitStatsDTO;
+import com.githubmonitor.api.service.RateLimitService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/rate-limits")
+@RequiredArgsConstructor
+public class RateLimitController {
+
+    private final RateLimitService rateLimitService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<RateLimitStatsDTO>> getStats() {
+        return ResponseEntity.ok(rateLimitService.getStats());
+    }
+}
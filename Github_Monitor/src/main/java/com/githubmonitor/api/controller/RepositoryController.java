@@ -1,9 +1,13 @@
 package com.githubmonitor.api.controller;
 
 import com.githubmonitor.api.dto.ContributorRankingDTO;
+import com.githubmonitor.api.dto.HotspotReportDTO;
+import com.githubmonitor.api.dto.PullRequestStateDTO;
 import com.githubmonitor.api.dto.RepositoryDTO;
 import com.githubmonitor.api.dto.RepositoryInput;
 import com.githubmonitor.api.dto.RepositoryMetricsDTO;
+import com.githubmonitor.api.service.HotspotService;
+import com.githubmonitor.api.service.PullRequestService;
 import com.githubmonitor.api.service.RepositoryService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +27,8 @@ import java.util.UUID;
 public class RepositoryController {
     
     private final RepositoryService repositoryService;
+    private final HotspotService hotspotService;
+    private final PullRequestService pullRequestService;
 
     @PostMapping
     public ResponseEntity<RepositoryDTO> create(@RequestBody @Valid RepositoryInput input) {
@@ -52,6 +58,24 @@ public class RepositoryController {
         return ResponseEntity.ok(repositoryService.getMetrics(id, period));
     }
 
+    // Most changed files and directories in the last N days, approximate (see maxOverestimate)
+    @GetMapping("/{id}/hotspots")
+    public ResponseEntity<HotspotReportDTO> getHotspots(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "7d") String period,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(hotspotService.getHotspots(id, period, limit));
+    }
+
+    // Open pull requests without activity for at least `days` days, least recently updated first
+    @GetMapping("/{id}/pull-requests/stale")
+    public ResponseEntity<List<PullRequestStateDTO>> getStalePullRequests(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(pullRequestService.findStale(id, days, limit));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable UUID id) {
         repositoryService.delete(id);
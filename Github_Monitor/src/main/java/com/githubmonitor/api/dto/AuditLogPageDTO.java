@@ -0,0 +1,22 @@
+package com.githubmonitor.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of audit logs, newest first. nextCursor is passed back as ?cursor= to get the following page
+ * and is null on the last page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogPageDTO {
+    private List<AuditLogDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+}
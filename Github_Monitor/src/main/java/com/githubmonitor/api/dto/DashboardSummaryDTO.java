@@ -0,0 +1,38 @@
+package com.githubmonitor.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSummaryDTO {
+    private long totalRepositories;
+    private long totalEvents;
+    private long totalAlerts;
+    private long openAlerts;
+    private Map<String, Long> eventsByType;
+    private Map<String, Long> alertsByStatus;
+    private Map<String, Long> alertsBySeverity;
+    private List<RepositorySummary> repositories;
+    private LocalDateTime reconciledAt;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RepositorySummary {
+        private UUID repositoryId;
+        private long events;
+        private long alerts;
+        private long openAlerts;
+    }
+}
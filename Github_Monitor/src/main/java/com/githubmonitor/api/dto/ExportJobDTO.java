@@ -0,0 +1,31 @@
+package com.githubmonitor.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportJobDTO {
+    private UUID id;
+    private Status status;
+    private ExportRequestDTO request;
+    private long rowsWritten;
+    private long totalRows;
+    private Integer progressPercent;
+    private Long sizeBytes;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime expiresAt;
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,30 @@
+package com.githubmonitor.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportRequestDTO {
+    private UUID repositoryId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    // Empty means every sheet
+    private Set<Sheet> sheets;
+
+    public enum Sheet {
+        OVERVIEW, REPOSITORIES, EVENTS, ALERTS
+    }
+
+    public boolean includes(Sheet sheet) {
+        return sheets == null || sheets.isEmpty() || sheets.contains(sheet);
+    }
+}
@@ -0,0 +1,20 @@
+package com.githubmonitor.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileContributorDTO {
+    private String githubLogin;
+    private String avatarUrl;
+    private Long fileCount;     // distinct paths touched
+    private Long eventCount;
+    private LocalDateTime lastTouchedAt;
+}
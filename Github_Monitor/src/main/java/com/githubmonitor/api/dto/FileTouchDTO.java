@@ -0,0 +1,24 @@
+package com.githubmonitor.api.dto;
+
+import com.githubmonitor.api.entity.Event;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileTouchDTO {
+    private UUID eventId;
+    private UUID repositoryId;
+    private Event.EventType type;
+    private String path;
+    private String change;          // ADDED, MODIFIED or REMOVED
+    private String contributorLogin;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,30 @@
+package com.githubmonitor.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotspotReportDTO {
+    private UUID repositoryId;
+    private String period;
+    private List<Hotspot> files;
+    private List<Hotspot> directories;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Hotspot {
+        private String path;
+        // Upper bound of the count; the true value is at least changes - maxOverestimate
+        private Long changes;
+        private Long maxOverestimate;
+    }
+}
@@ -0,0 +1,23 @@
+package com.githubmonitor.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PullRequestStateDTO {
+    private UUID repositoryId;
+    private Integer number;
+    private String title;
+    private String author;
+    private String htmlUrl;
+    private String state;
+    private LocalDateTime openedAt;
+    private LocalDateTime updatedAt;
+}
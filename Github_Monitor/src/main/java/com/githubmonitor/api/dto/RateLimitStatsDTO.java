@@ -0,0 +1,20 @@
+package com.githubmonitor.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitStatsDTO {
+    private String group;
+    private long capacity;
+    private double refillPerSecond;
+    private long allowed;
+    private long rejected;
+    private String backend;
+    private long activeBuckets;
+}
@@ -27,6 +27,21 @@ public class RepositoryMetricsDTO {
         private Integer opened;
         private Integer merged;
         private Integer closed;
+        // Open right now, regardless of the period
+        private Integer open;
+        private LeadTime timeToMerge;
+        private LeadTime timeToFirstClose;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LeadTime {
+        private Integer count;
+        private Double p50Hours;
+        private Double p75Hours;
+        private Double p90Hours;
     }
 
     @Data
@@ -8,6 +8,8 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
 import org.hibernate.type.SqlTypes;
 
 @Entity
@@ -23,8 +25,11 @@ public class Alert {
     @Column(columnDefinition = "uuid")
     private UUID id;
 
-    @ManyToOne(fetch = FetchType.LAZY)
+    // No foreign key since events is partitioned (V7): the event may have been expired or archived.
+    // @NotFound needs an eager fetch; the alert DTO reads the event anyway
+    @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "event_id")
+    @NotFound(action = NotFoundAction.IGNORE)
     private Event event;
 
     @Column(name = "repository_id", nullable = false)
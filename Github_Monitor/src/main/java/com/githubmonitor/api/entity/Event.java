@@ -40,6 +40,7 @@ public class Event {
 
     @Column(columnDefinition = "jsonb")
     @JdbcTypeCode(SqlTypes.JSON)
+    @Convert(converter = EventPayloadConverter.class)
     private String payload;
 
     @Column(name = "created_at", updatable = false)
@@ -0,0 +1,29 @@
+package com.githubmonitor.api.entity;
+
+import com.githubmonitor.api.service.EventPayloadCodec;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the payload storage policy on the way to the database and undoes it on load, so every reader of
+ * Event.getPayload() sees plain JSON. Instantiated by Spring through Hibernate's bean container.
+ */
+@Component
+@Converter
+@RequiredArgsConstructor
+public class EventPayloadConverter implements AttributeConverter<String, String> {
+
+    private final EventPayloadCodec eventPayloadCodec;
+
+    @Override
+    public String convertToDatabaseColumn(String payload) {
+        return eventPayloadCodec.encode(payload);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String stored) {
+        return eventPayloadCodec.decode(stored);
+    }
+}
@@ -5,8 +5,6 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.JdbcTypeCode;
-import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -23,21 +21,71 @@ public class Notification {
     @Column(columnDefinition = "uuid")
     private UUID id;
 
-    @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "alert_id", nullable = false)
-    private Alert alert;
+    // Null for plain event notifications
+    @Column(name = "alert_id")
+    private UUID alertId;
+
+    @Column(name = "event_id")
+    private UUID eventId;
+
+    @Column(name = "repository_id")
+    private UUID repositoryId;
+
+    @Column(name = "repository_name")
+    private String repositoryName;
 
     @Column(name = "type", nullable = false)
     private String channel;
 
+    // Event type or "ALERT <rule>", used to summarize digests
+    private String category;
+
+    private String author;
+
+    // Alert severity, null for events
+    private String priority;
+
+    @Enumerated(EnumType.STRING)
     @Column(nullable = false)
-    private String status;
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "claim_id")
+    private UUID claimId;
+
+    // Set on every row delivered as part of a digest
+    @Column(name = "digest_id")
+    private UUID digestId;
 
     @Column(name = "sent_at")
     private LocalDateTime sentAt;
 
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
     @PrePersist
     protected void onCreate() {
-        sentAt = LocalDateTime.now();
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public enum Status {
+        PENDING, SENDING, SENT, FAILED
     }
 }
@@ -0,0 +1,13 @@
+package com.githubmonitor.api.exception;
+
+import lombok.Getter;
+
+@Getter
+public class GithubRateLimitException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public GithubRateLimitException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
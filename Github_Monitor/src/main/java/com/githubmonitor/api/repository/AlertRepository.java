@@ -2,11 +2,17 @@ package com.githubmonitor.api.repository;
 
 import com.githubmonitor.api.entity.Alert;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
-public interface AlertRepository extends JpaRepository<Alert, UUID> {
+public interface AlertRepository extends JpaRepository<Alert, UUID>, JpaSpecificationExecutor<Alert> {
     List<Alert> findByStatus(Alert.Status status);
+
+    // Rows of [repositoryId, status, severity, count] for the dashboard summary
+    @Query("SELECT a.repositoryId, a.status, a.severity, COUNT(a) FROM Alert a GROUP BY a.repositoryId, a.status, a.severity")
+    List<Object[]> countByRepositoryStatusAndSeverity();
 }
@@ -3,6 +3,8 @@ package com.githubmonitor.api.repository;
 import com.githubmonitor.api.entity.Event;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -12,5 +14,13 @@ import java.util.UUID;
 public interface EventRepository extends JpaRepository<Event, UUID>, JpaSpecificationExecutor<Event> {
     List<Event> findByRepositoryId(UUID repositoryId);
     List<Event> findByRepositoryIdAndCreatedAtAfter(UUID repositoryId, java.time.LocalDateTime createdAt);
+    List<Event> findByRepositoryIdAndTypeInAndCreatedAtAfter(UUID repositoryId, java.util.Collection<Event.EventType> types, java.time.LocalDateTime createdAt);
     Optional<Event> findByDeliveryId(String deliveryId);
+
+    @Query("SELECT e FROM Event e JOIN FETCH e.repository WHERE e.id = :id")
+    Optional<Event> findWithRepositoryById(@Param("id") UUID id);
+
+    // Rows of [repositoryId, type, count] for the dashboard summary
+    @Query("SELECT e.repository.id, e.type, COUNT(e) FROM Event e GROUP BY e.repository.id, e.type")
+    List<Object[]> countByRepositoryAndType();
 }
@@ -1,10 +1,46 @@
 package com.githubmonitor.api.repository;
 
 import com.githubmonitor.api.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
+
+    // PENDING rows that are due, plus SENDING rows whose lease expired (the worker died mid-delivery)
+    @Query("SELECT n.id FROM Notification n WHERE n.status IN :statuses AND n.nextAttemptAt <= :now ORDER BY n.nextAttemptAt")
+    List<UUID> findDueIds(@Param("statuses") Collection<Notification.Status> statuses, @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Only one worker wins the claim, so a notification is never delivered twice concurrently
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.status = :sending, n.claimId = :claimId, n.nextAttemptAt = :leaseUntil " +
+            "WHERE n.id = :id AND n.status IN :statuses AND n.nextAttemptAt <= :now")
+    int claim(@Param("id") UUID id, @Param("statuses") Collection<Notification.Status> statuses,
+              @Param("sending") Notification.Status sending, @Param("claimId") UUID claimId,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Adds every other due notification of the same channel and repository to a claim, except bypassing priorities
+    @Modifying
+    @Transactional
+    @Query("UPDATE Notification n SET n.status = :sending, n.claimId = :claimId, n.nextAttemptAt = :leaseUntil " +
+            "WHERE n.channel = :channel AND n.repositoryId = :repositoryId AND n.status IN :statuses AND n.nextAttemptAt <= :now " +
+            "AND (n.priority IS NULL OR n.priority <> :bypassPriority)")
+    int claimDigestGroup(@Param("channel") String channel, @Param("repositoryId") UUID repositoryId,
+                         @Param("statuses") Collection<Notification.Status> statuses,
+                         @Param("sending") Notification.Status sending, @Param("claimId") UUID claimId,
+                         @Param("bypassPriority") String bypassPriority,
+                         @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    List<Notification> findByClaimIdOrderByCreatedAt(UUID claimId);
 }
@@ -1,13 +1,25 @@
 package com.githubmonitor.api.repository;
 
 import com.githubmonitor.api.entity.Repository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.UUID;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @org.springframework.stereotype.Repository
 public interface RepositoryRepository extends JpaRepository<Repository, UUID> {
     List<Repository> findByUserId(UUID userId);
     Optional<Repository> findByGithubRepoId(String githubRepoId);
+
+    @Query("SELECT r.id FROM Repository r")
+    List<UUID> findAllIds();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT r FROM Repository r ORDER BY r.lastSyncedAt DESC NULLS LAST")
+    Stream<Repository> streamAllByLastSyncedAtDesc();
 }
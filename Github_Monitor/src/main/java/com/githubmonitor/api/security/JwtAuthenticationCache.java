@@ -0,0 +1,110 @@
+package com.githubmonitor.api.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of verified tokens and loaded principals, so an authenticated request normally costs
+ * two map lookups instead of a signature check and a users query.
+ * Entries never outlive the token expiry, and a user's entries are dropped when the user is updated or deleted.
+ */
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationCache {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final UserDetailsService userDetailsService;
+
+    private final Map<String, TokenEntry> tokens = new ConcurrentHashMap<>();
+    private final Map<String, UserEntry> users = new ConcurrentHashMap<>();
+
+    @Value("${app.jwt.cache-ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.jwt.cache-max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Principal for a token, or null when the token is not valid.
+     */
+    public UserDetails resolve(String token) {
+        long now = System.currentTimeMillis();
+
+        TokenEntry tokenEntry = tokens.get(token);
+        if (tokenEntry == null || tokenEntry.validUntil() <= now) {
+            Claims claims = jwtTokenProvider.parseClaims(token);
+            if (claims == null) {
+                tokens.remove(token);
+                return null;
+            }
+            long validUntil = now + ttlMs;
+            if (claims.getExpiration() != null) {
+                validUntil = Math.min(validUntil, claims.getExpiration().getTime());
+            }
+            tokenEntry = new TokenEntry(claims.getSubject(), validUntil);
+            if (ttlMs > 0) {
+                put(tokens, token, tokenEntry, now);
+            }
+        }
+
+        UserEntry userEntry = users.get(tokenEntry.username());
+        if (userEntry != null && userEntry.validUntil() > now) {
+            return userEntry.details();
+        }
+
+        UserDetails details = userDetailsService.loadUserByUsername(tokenEntry.username());
+        if (ttlMs > 0) {
+            put(users, tokenEntry.username(), new UserEntry(details, now + ttlMs), now);
+        }
+        return details;
+    }
+
+    /**
+     * Drops the cached principal and tokens of a user once the current transaction commits.
+     */
+    public void evictUser(String username) {
+        Runnable evict = () -> {
+            users.remove(username);
+            tokens.values().removeIf(entry -> entry.username().equals(username));
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict.run();
+            }
+        });
+    }
+
+    private <V extends Expiring> void put(Map<String, V> map, String key, V value, long now) {
+        if (map.size() >= maxEntries) {
+            map.values().removeIf(entry -> entry.validUntil() <= now);
+            if (map.size() >= maxEntries) {
+                map.clear();
+            }
+        }
+        map.put(key, value);
+    }
+
+    private interface Expiring {
+        long validUntil();
+    }
+
+    private record TokenEntry(String username, long validUntil) implements Expiring {
+    }
+
+    private record UserEntry(UserDetails details, long validUntil) implements Expiring {
+    }
+}
@@ -0,0 +1,108 @@
+package com.githubmonitor.api.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.dto.ApiError;
+import com.githubmonitor.api.service.RateLimitService;
+import com.githubmonitor.api.service.RateLimitService.EndpointGroup;
+import com.githubmonitor.api.service.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Per-client token buckets for each endpoint group. Runs after JwtAuthenticationFilter so signed-in clients
+ * are limited per user and anonymous calls per remote address, which is the client's address behind a trusted
+ * proxy (server.forward-headers-strategy). Webhooks are not limited: GitHub does not retry a 429, so a rejected
+ * delivery would be lost, and unsigned or repeated deliveries are already rejected by the signature and delivery id checks.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        EndpointGroup group = enabled ? resolveGroup(request) : null;
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimiter.Decision decision = rateLimitService.acquire(group, clientKey(request, group));
+        long resetEpochSeconds = System.currentTimeMillis() / 1000 + decision.resetSeconds();
+        response.setHeader("X-RateLimit-Limit", String.valueOf(rateLimitService.getCapacity(group)));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(resetEpochSeconds));
+
+        if (!decision.allowed()) {
+            log.warn("Rate limit exceeded for {} on {}", clientKey(request, group), request.getRequestURI());
+            ApiError apiError = ApiError.builder()
+                    .timestamp(LocalDateTime.now())
+                    .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                    .error(HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase())
+                    .message("Rate limit exceeded for " + group.name().toLowerCase() + " requests")
+                    .path(request.getRequestURI())
+                    .build();
+
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, decision.retryAfterSeconds())));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), apiError);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private EndpointGroup resolveGroup(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+
+        if (!path.startsWith("/api/") || "OPTIONS".equals(method) || path.startsWith("/api/events/stream")
+                || path.startsWith("/api/webhooks/")) {
+            // Long-lived SSE connections are not request traffic
+            return null;
+        }
+        if (path.endsWith("/export") || path.endsWith("/download")
+                || ("POST".equals(method) && path.equals("/api/dashboard/exports"))) {
+            return EndpointGroup.EXPORTS;
+        }
+        if (path.startsWith("/api/events/") && path.contains("/diff")) {
+            return EndpointGroup.DIFFS;
+        }
+        return "GET".equals(method) ? EndpointGroup.READS : null;
+    }
+
+    private String clientKey(HttpServletRequest request, EndpointGroup group) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
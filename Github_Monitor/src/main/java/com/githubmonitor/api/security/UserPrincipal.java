@@ -0,0 +1,23 @@
+package com.githubmonitor.api.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Authenticated user as stored in the security context. Carries the database id so callers such as the
+ * audit log can reference the user without looking it up by email again.
+ */
+@Getter
+public class UserPrincipal extends User {
+
+    private final UUID id;
+
+    public UserPrincipal(UUID id, String email, String password, Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, authorities);
+        this.id = id;
+    }
+}
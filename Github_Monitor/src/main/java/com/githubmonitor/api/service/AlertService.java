@@ -4,10 +4,14 @@ import com.githubmonitor.api.dto.AlertDTO;
 import com.githubmonitor.api.entity.Event;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface AlertService {
     void checkAlerts(Event event);
     Page<AlertDTO> findAll(UUID repositoryId, Pageable pageable);
     void resolveAlert(UUID id);
+    long count(UUID repositoryId, LocalDateTime start, LocalDateTime end);
+    void forEach(UUID repositoryId, LocalDateTime start, LocalDateTime end, Consumer<AlertDTO> consumer);
 }
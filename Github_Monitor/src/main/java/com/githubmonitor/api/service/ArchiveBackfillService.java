@@ -0,0 +1,10 @@
+package com.githubmonitor.api.service;
+
+/**
+ * Derives commits, file touches and pull request state for events that were archived before those tables existed.
+ */
+public interface ArchiveBackfillService {
+
+    // Processes every archived month still pending, skipping months another node is working on
+    void backfill();
+}
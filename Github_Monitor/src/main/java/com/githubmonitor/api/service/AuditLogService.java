@@ -1,13 +1,14 @@
 package com.githubmonitor.api.service;
 
-import com.githubmonitor.api.dto.AuditLogDTO;
+import com.githubmonitor.api.dto.AuditLogPageDTO;
 import com.githubmonitor.api.entity.User;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 public interface AuditLogService {
     void log(User user, String action, String resource, Object details);
     void log(String action, String resource, Object details);
     void logSecurityEvent(String action, String resource, String details);
-    List<AuditLogDTO> getAllLogs();
+    AuditLogPageDTO findLogs(UUID userId, String action, String resource, LocalDateTime start, LocalDateTime end, String cursor, int size);
 }
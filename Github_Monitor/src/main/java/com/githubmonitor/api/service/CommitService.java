@@ -0,0 +1,19 @@
+package com.githubmonitor.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.githubmonitor.api.dto.RepositoryMetricsDTO;
+import com.githubmonitor.api.entity.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface CommitService {
+    // Writes every commit of a push payload to the commits table; a commit already known by sha only keeps the earlier push
+    void recordPush(Event event, JsonNode payload);
+
+    // Commits first pushed since the given time
+    long countCommits(UUID repositoryId, LocalDateTime since);
+
+    List<RepositoryMetricsDTO.ContributorMetric> topAuthors(UUID repositoryId, LocalDateTime since, int limit);
+}
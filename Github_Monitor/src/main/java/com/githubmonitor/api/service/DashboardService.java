@@ -1,5 +1,11 @@
 package com.githubmonitor.api.service;
 
+import com.githubmonitor.api.dto.ExportRequestDTO;
+
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
 public interface DashboardService {
-    byte[] generateExcelReport();
+    long countExportRows(ExportRequestDTO request);
+    void writeExcelReport(ExportRequestDTO request, OutputStream out, LongConsumer rowsWritten);
 }
@@ -0,0 +1,21 @@
+package com.githubmonitor.api.service;
+
+import com.githubmonitor.api.dto.DashboardSummaryDTO;
+import com.githubmonitor.api.entity.Alert;
+import com.githubmonitor.api.entity.Event;
+
+import java.util.UUID;
+
+public interface DashboardSummaryService {
+    DashboardSummaryDTO getSummary();
+    DashboardSummaryDTO.RepositorySummary getRepositorySummary(UUID repositoryId);
+
+    // Applied after the surrounding transaction commits
+    void recordRepositoryCreated(UUID repositoryId);
+    void recordRepositoryDeleted(UUID repositoryId);
+    void recordEvent(UUID repositoryId, Event.EventType type);
+    void recordAlertCreated(UUID repositoryId, Alert.Severity severity);
+    void recordAlertResolved(UUID repositoryId, Alert.Severity severity);
+
+    void reconcile();
+}
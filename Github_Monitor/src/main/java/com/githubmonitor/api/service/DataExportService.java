@@ -0,0 +1,40 @@
+package com.githubmonitor.api.service;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface DataExportService {
+    void writeEvents(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end, Format format, boolean gzip, OutputStream out);
+    void writeAlerts(UUID repositoryId, LocalDateTime start, LocalDateTime end, Format format, boolean gzip, OutputStream out);
+
+    enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+}
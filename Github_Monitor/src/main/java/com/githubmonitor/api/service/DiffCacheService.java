@@ -0,0 +1,15 @@
+package com.githubmonitor.api.service;
+
+import com.githubmonitor.api.dto.DiffFileDTO;
+
+import java.util.List;
+
+public interface DiffCacheService {
+    CachedDiff get(String key);
+    void put(String key, CachedDiff diff);
+    // Marks an entry as revalidated (HTTP 304) without rewriting it
+    void touch(String key, long fetchedAt);
+
+    record CachedDiff(List<DiffFileDTO> files, String etag, long fetchedAt) {
+    }
+}
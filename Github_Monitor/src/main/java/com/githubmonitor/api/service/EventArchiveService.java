@@ -0,0 +1,32 @@
+package com.githubmonitor.api.service;
+
+import com.githubmonitor.api.entity.Event;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Cold tier for events: whole months that are older than app.archive.after-days are moved out of Postgres into
+ * compressed segment files. Reads are newest first, like the hot table; a null repositoryId reads every repository.
+ * Callers read the hot table first, in the same transaction.
+ */
+public interface EventArchiveService {
+
+    void archiveExpired();
+
+    boolean hasArchive(UUID repositoryId);
+
+    long count(UUID repositoryId, Event.EventType type, LocalDateTime start, LocalDateTime end);
+
+    // Visits matching events newest first, skipping the first offset matches, until the visitor returns false
+    void scan(UUID repositoryId, Event.EventType type, LocalDateTime start, LocalDateTime end, long offset, Predicate<ArchivedEvent> visitor);
+
+    // Visits every event of an archived month, all repositories, newest first, until the visitor returns false
+    void scanMonth(YearMonth month, Predicate<ArchivedEvent> visitor);
+
+    record ArchivedEvent(UUID id, UUID repositoryId, UUID contributorId, Event.EventType type, String deliveryId,
+                         String payload, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.githubmonitor.api.service;
+
+public interface EventPayloadCodec {
+    // Form written to events.payload: slimmed per app.events.payload.*, optionally compressed
+    String encode(String payload);
+
+    // Payload JSON as readers expect it, for legacy full rows, slimmed rows and compressed rows alike
+    String decode(String stored);
+}
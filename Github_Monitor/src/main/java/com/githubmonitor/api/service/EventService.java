@@ -7,9 +7,15 @@ import org.springframework.data.domain.Pageable;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public interface EventService {
     Page<EventDTO> findAll(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end, Pageable pageable);
-    List<DiffFileDTO> getEventDiff(UUID eventId);
+    List<DiffFileDTO> getEventDiff(UUID eventId, boolean includePatches);
+    DiffFileDTO getEventDiffFile(UUID eventId, String filename);
+    void streamEventDiff(UUID eventId, boolean includePatches, Predicate<DiffFileDTO> visitor);
+    long count(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end);
+    void forEach(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end, Consumer<EventDTO> consumer);
     void processWebhook(String eventType, String signature, String deliveryId, String payload);
 }
@@ -0,0 +1,13 @@
+package com.githubmonitor.api.service;
+
+import com.githubmonitor.api.dto.ExportJobDTO;
+import com.githubmonitor.api.dto.ExportRequestDTO;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+public interface ExportJobService {
+    ExportJobDTO submit(ExportRequestDTO request);
+    ExportJobDTO getJob(UUID id);
+    Path getArtifact(UUID id);
+}
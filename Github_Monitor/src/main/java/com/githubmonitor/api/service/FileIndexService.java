@@ -0,0 +1,20 @@
+package com.githubmonitor.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.githubmonitor.api.dto.FileContributorDTO;
+import com.githubmonitor.api.dto.FileTouchDTO;
+import com.githubmonitor.api.entity.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface FileIndexService {
+    // Indexes the files added, modified or removed by the commits of a push
+    void recordPush(Event event, JsonNode payload);
+
+    // path is an exact path, or a prefix when prefix is true; newest first
+    List<FileTouchDTO> findTouches(UUID repositoryId, String path, boolean prefix, LocalDateTime start, LocalDateTime end, int limit);
+
+    List<FileContributorDTO> findContributors(UUID repositoryId, String path, boolean prefix, LocalDateTime start, LocalDateTime end, int limit);
+}
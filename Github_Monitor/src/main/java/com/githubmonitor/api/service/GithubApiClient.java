@@ -0,0 +1,17 @@
+package com.githubmonitor.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public interface GithubApiClient {
+    JsonNode get(String path);
+
+    /**
+     * GET with If-None-Match. A 304 does not count against the rate limit and returns notModified with no body.
+     */
+    Response getConditional(String path, String etag);
+
+    long remainingRequests();
+
+    record Response(JsonNode body, String etag, boolean notModified) {
+    }
+}
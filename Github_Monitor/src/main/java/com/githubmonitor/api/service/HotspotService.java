@@ -0,0 +1,12 @@
+package com.githubmonitor.api.service;
+
+import com.githubmonitor.api.dto.HotspotReportDTO;
+
+import java.util.UUID;
+
+public interface HotspotService {
+    // period is a number of days such as "7d"
+    HotspotReportDTO getHotspots(UUID repositoryId, String period, int limit);
+
+    void snapshot();
+}
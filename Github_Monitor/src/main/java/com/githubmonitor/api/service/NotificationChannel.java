@@ -0,0 +1,12 @@
+package com.githubmonitor.api.service;
+
+import com.githubmonitor.api.entity.Notification;
+
+/**
+ * A delivery target for notifications. Implementations throw on failure; the dispatcher handles retries.
+ */
+public interface NotificationChannel {
+    String name();
+    boolean isEnabled();
+    void send(Notification notification) throws Exception;
+}
@@ -1,5 +1,9 @@
 package com.githubmonitor.api.service;
 
+import com.githubmonitor.api.entity.Alert;
+import com.githubmonitor.api.entity.Event;
+
 public interface NotificationService {
-    void sendNotification(String title, String message);
+    void sendEventNotification(Event event, String author, String title, String message);
+    void sendAlertNotification(Alert alert, Event event, String author, String title, String message);
 }
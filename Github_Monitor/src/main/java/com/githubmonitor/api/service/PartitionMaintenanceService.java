@@ -0,0 +1,6 @@
+package com.githubmonitor.api.service;
+
+public interface PartitionMaintenanceService {
+    // Creates the upcoming monthly partitions and applies the retention policy to the expired ones
+    void maintain();
+}
@@ -0,0 +1,21 @@
+package com.githubmonitor.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.githubmonitor.api.dto.PullRequestStateDTO;
+import com.githubmonitor.api.dto.RepositoryMetricsDTO;
+import com.githubmonitor.api.entity.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface PullRequestService {
+    // Upserts pull_request_state from the pull_request object of the payload
+    void recordEvent(Event event, JsonNode payload);
+
+    // Counts and lead times of PRs opened, merged or closed since the given time, plus PRs open right now
+    RepositoryMetricsDTO.PullRequestsMetrics getMetrics(UUID repositoryId, LocalDateTime since);
+
+    // Open PRs without activity for at least staleDays, least recently updated first
+    List<PullRequestStateDTO> findStale(UUID repositoryId, int staleDays, int limit);
+}
@@ -0,0 +1,15 @@
+package com.githubmonitor.api.service;
+
+import com.githubmonitor.api.dto.RateLimitStatsDTO;
+
+import java.util.List;
+
+public interface RateLimitService {
+    RateLimiter.Decision acquire(EndpointGroup group, String clientKey);
+    long getCapacity(EndpointGroup group);
+    List<RateLimitStatsDTO> getStats();
+
+    enum EndpointGroup {
+        READS, EXPORTS, DIFFS
+    }
+}
@@ -0,0 +1,19 @@
+package com.githubmonitor.api.service;
+
+public interface RateLimiter {
+    Decision tryAcquire(String key, long capacity, double refillPerSecond);
+    long activeBuckets();
+
+    /**
+     * remaining: whole tokens left after this call, retryAfterSeconds: wait before the next token (0 when allowed),
+     * resetSeconds: time until the bucket is full again.
+     */
+    record Decision(boolean allowed, long remaining, long retryAfterSeconds, long resetSeconds) {
+
+        public static Decision of(boolean allowed, double tokens, long capacity, double refillPerSecond) {
+            long retryAfter = allowed ? 0 : (long) Math.ceil((1 - tokens) / refillPerSecond);
+            long reset = (long) Math.ceil((capacity - tokens) / refillPerSecond);
+            return new Decision(allowed, (long) Math.floor(tokens), retryAfter, reset);
+        }
+    }
+}
@@ -8,9 +8,11 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface RepositoryService {
     Page<RepositoryDTO> findAll(Pageable pageable);
+    void forEach(UUID repositoryId, Consumer<RepositoryDTO> consumer);
     RepositoryDTO create(RepositoryInput input);
     void delete(UUID id);
     RepositoryDTO findById(UUID id);
@@ -0,0 +1,18 @@
+package com.githubmonitor.api.service;
+
+import java.util.UUID;
+
+/**
+ * Carries SSE frames to every API node, this one included, and numbers them. Ids grow in delivery order and are
+ * the same on every node, so a client can resume with Last-Event-ID on whichever node it reconnects to.
+ */
+public interface SseBroadcastBus {
+    // userId is null for frames sent to everyone
+    void publish(UUID userId, String type, String data);
+    void onFrame(FrameListener listener);
+
+    @FunctionalInterface
+    interface FrameListener {
+        void accept(long id, UUID userId, String type, String data);
+    }
+}
@@ -1,10 +1,17 @@
 package com.githubmonitor.api.service;
 
 import com.githubmonitor.api.dto.EventDTO;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
 
 public interface SseService {
-    SseEmitter subscribe();
+    SseEmitter subscribe(String lastEventId, Boolean batch);
+    Flux<ServerSentEvent<String>> stream(String lastEventId, Boolean batch);
     void sendEvent(EventDTO event);
     void sendUpdate(String type, Object data);
+    // Only to the connections opened by this user, on every node
+    void sendToUser(UUID userId, String type, Object data);
 }
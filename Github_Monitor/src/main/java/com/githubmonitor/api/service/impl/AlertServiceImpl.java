@@ -9,16 +9,27 @@ import com.githubmonitor.api.model.AlertRuleType;
 import com.githubmonitor.api.repository.AlertRepository;
 import com.githubmonitor.api.repository.EventRepository;
 import com.githubmonitor.api.service.AlertService;
+import com.githubmonitor.api.service.DashboardSummaryService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -26,10 +37,12 @@ import java.util.UUID;
 public class AlertServiceImpl implements AlertService {
 
     private final AlertRepository alertRepository;
+    private final EntityManager entityManager;
     private final EventRepository eventRepository;
     private final ObjectMapper objectMapper;
     private final com.githubmonitor.api.service.NotificationService notificationService;
     private final com.githubmonitor.api.service.SseService sseService;
+    private final DashboardSummaryService dashboardSummaryService;
 
     @Override
     public Page<AlertDTO> findAll(UUID repositoryId, Pageable pageable) {
@@ -37,6 +50,53 @@ public class AlertServiceImpl implements AlertService {
                 .map(this::toDTO);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(UUID repositoryId, LocalDateTime start, LocalDateTime end, Consumer<AlertDTO> consumer) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Alert> query = cb.createQuery(Alert.class);
+        Root<Alert> root = query.from(Alert.class);
+        // Fetched with the row: toDTO reads the event payload and contributor of every alert
+        root.fetch("event", JoinType.LEFT).fetch("contributor", JoinType.LEFT);
+        query.where(filter(repositoryId, start, end).toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("createdAt")));
+
+        try (Stream<Alert> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            int[] count = {0};
+            rows.forEach(row -> {
+                consumer.accept(toDTO(row));
+                // Keep the persistence context from growing with the cursor
+                if (++count[0] % 500 == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
+    @Override
+    public long count(UUID repositoryId, LocalDateTime start, LocalDateTime end) {
+        return alertRepository.count(filter(repositoryId, start, end));
+    }
+
+    private Specification<Alert> filter(UUID repositoryId, LocalDateTime start, LocalDateTime end) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new java.util.ArrayList<>();
+            if (repositoryId != null) {
+                predicates.add(cb.equal(root.get("repositoryId"), repositoryId));
+            }
+            if (start != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), start));
+            }
+            if (end != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), end));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
     private AlertDTO toDTO(Alert alert) {
         return AlertDTO.builder()
                 .id(alert.getId())
@@ -80,9 +140,13 @@ public class AlertServiceImpl implements AlertService {
     public void resolveAlert(UUID id) {
         Alert alert = alertRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Alert not found"));
+        boolean wasOpen = alert.getStatus() != Alert.Status.RESOLVED;
         alert.setStatus(Alert.Status.RESOLVED);
         alert.setResolvedAt(LocalDateTime.now());
         alertRepository.save(alert);
+        if (wasOpen) {
+            dashboardSummaryService.recordAlertResolved(alert.getRepositoryId(), alert.getSeverity());
+        }
         sseService.sendUpdate("alert-update", toDTO(alert));
     }
 
@@ -204,6 +268,7 @@ public class AlertServiceImpl implements AlertService {
         
         alertRepository.save(alert);
         log.info("Alert created: {}", alert.getId());
+        dashboardSummaryService.recordAlertCreated(alert.getRepositoryId(), alert.getSeverity());
         
         // Broadcast Alert SSE
         sseService.sendUpdate("alert-update", toDTO(alert));
@@ -234,7 +299,8 @@ public class AlertServiceImpl implements AlertService {
             message.append("Data: ").append(event.getCreatedAt().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))).append("\n");
             message.append("Msg: ").append(alert.getMessage());
             
-            notificationService.sendNotification(title, message.toString());
+            String author = event.getContributor() != null ? event.getContributor().getGithubLogin() : null;
+            notificationService.sendAlertNotification(alert, event, author, title, message.toString());
         } catch (Exception e) {
             log.error("Failed to send alert notification", e);
         }
@@ -0,0 +1,158 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.entity.Contributor;
+import com.githubmonitor.api.entity.Event;
+import com.githubmonitor.api.entity.Repository;
+import com.githubmonitor.api.service.ArchiveBackfillService;
+import com.githubmonitor.api.service.CommitService;
+import com.githubmonitor.api.service.EventArchiveService;
+import com.githubmonitor.api.service.FileIndexService;
+import com.githubmonitor.api.service.PullRequestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The initial loads of commits (V9), event_files (V10) and pull_request_state (V12) only read the events table,
+ * so months archived before them have no derived rows. Those months have a null archived_event_months.backfilled_at
+ * (see V16): a node claims one with a lease, replays its segments through the same ingest code as webhooks in
+ * batches, and marks it done. Every write is idempotent, so a month retried after a crash only repeats work.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArchiveBackfillServiceImpl implements ArchiveBackfillService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EventArchiveService eventArchiveService;
+    private final CommitService commitService;
+    private final FileIndexService fileIndexService;
+    private final PullRequestService pullRequestService;
+    private final ObjectMapper objectMapper;
+
+    @Qualifier("applicationTaskExecutor")
+    private final Executor executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.archive.backfill.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.archive.backfill.lease-minutes:15}")
+    private int leaseMinutes;
+
+    // A month can take a while, so the work runs off the scheduler thread
+    @Scheduled(initialDelayString = "${app.archive.backfill.initial-delay-ms:60000}", fixedDelayString = "${app.archive.backfill.interval-ms:3600000}")
+    public void schedule() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                backfill();
+            } catch (Exception e) {
+                log.error("Archive backfill failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    @Override
+    public void backfill() {
+        List<Date> pending = jdbcTemplate.queryForList(
+                "SELECT month FROM archived_event_months WHERE backfilled_at IS NULL ORDER BY month DESC", Date.class);
+        for (Date month : pending) {
+            if (!claim(month)) {
+                continue;
+            }
+            try {
+                backfillMonth(month);
+            } catch (RuntimeException e) {
+                // The lease runs out and the month is retried on the next run, here or on another node
+                log.error("Failed to backfill archived events of {}", month, e);
+                return;
+            }
+        }
+    }
+
+    private boolean claim(Date month) {
+        return jdbcTemplate.update("UPDATE archived_event_months SET backfill_claimed_until = now() + make_interval(mins => ?) "
+                + "WHERE month = ? AND backfilled_at IS NULL AND (backfill_claimed_until IS NULL OR backfill_claimed_until < now())",
+                leaseMinutes, month) == 1;
+    }
+
+    private void backfillMonth(Date month) {
+        long started = System.currentTimeMillis();
+        // Otherwise the file touches of a month whose events partition was already dropped would land in the default partition
+        jdbcTemplate.queryForObject("SELECT create_monthly_partition('event_files', ?)", String.class, month);
+
+        List<EventArchiveService.ArchivedEvent> batch = new ArrayList<>(batchSize);
+        long[] total = {0};
+        eventArchiveService.scanMonth(YearMonth.from(month.toLocalDate()), archived -> {
+            if (archived.type() == Event.EventType.PUSH || archived.type() == Event.EventType.PULL_REQUEST) {
+                batch.add(archived);
+                if (batch.size() >= batchSize) {
+                    apply(month, batch);
+                    total[0] += batch.size();
+                    batch.clear();
+                }
+            }
+            return true;
+        });
+        if (!batch.isEmpty()) {
+            apply(month, batch);
+            total[0] += batch.size();
+        }
+
+        jdbcTemplate.update("UPDATE archived_event_months SET backfilled_at = now(), backfill_claimed_until = NULL WHERE month = ?", month);
+        log.info("Backfilled {} archived push and pull request events of {} in {} ms", total[0], month, System.currentTimeMillis() - started);
+    }
+
+    // One transaction per batch, which also renews the lease
+    private void apply(Date month, List<EventArchiveService.ArchivedEvent> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (EventArchiveService.ArchivedEvent archived : batch) {
+                JsonNode payload;
+                try {
+                    payload = objectMapper.readTree(archived.payload());
+                } catch (JsonProcessingException e) {
+                    log.debug("Skipping unreadable archived event {}", archived.id());
+                    continue;
+                }
+                Event event = Event.builder()
+                        .id(archived.id())
+                        .repository(Repository.builder().id(archived.repositoryId()).build())
+                        .contributor(archived.contributorId() != null ? Contributor.builder().id(archived.contributorId()).build() : null)
+                        .type(archived.type())
+                        .deliveryId(archived.deliveryId())
+                        .createdAt(archived.createdAt())
+                        .build();
+                if (archived.type() == Event.EventType.PUSH) {
+                    commitService.recordPush(event, payload);
+                    fileIndexService.recordPush(event, payload);
+                } else {
+                    pullRequestService.recordEvent(event, payload);
+                }
+            }
+            jdbcTemplate.update("UPDATE archived_event_months SET backfill_claimed_until = now() + make_interval(mins => ?) WHERE month = ?",
+                    leaseMinutes, month);
+        });
+    }
+}
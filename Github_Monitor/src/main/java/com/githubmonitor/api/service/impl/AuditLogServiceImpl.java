@@ -3,110 +3,350 @@ package com.githubmonitor.api.service.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.githubmonitor.api.dto.AuditLogDTO;
+import com.githubmonitor.api.dto.AuditLogPageDTO;
 import com.githubmonitor.api.entity.AuditLog;
 import com.githubmonitor.api.entity.User;
-import com.githubmonitor.api.repository.AuditLogRepository;
-import com.githubmonitor.api.repository.UserRepository;
+import com.githubmonitor.api.exception.BadRequestException;
+import com.githubmonitor.api.security.UserPrincipal;
 import com.githubmonitor.api.service.AuditLogService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Audit entries are captured on the caller thread (user id from the security context, details serialized
+ * right away) and put on a bounded queue. A single writer thread drains the queue and inserts the entries
+ * in JDBC batches, so auditing costs the request neither a transaction nor a user lookup.
+ * What happens when the queue is full is set by app.audit.overflow-policy, and the queue is drained on shutdown.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AuditLogServiceImpl implements AuditLogService {
 
-    private final AuditLogRepository auditLogRepository;
-    private final UserRepository userRepository;
+    private static final String INSERT_SQL = "INSERT INTO audit_logs (user_id, action, resource, details, anonymous, created_at) "
+            + "VALUES (?, ?, ?, CAST(? AS jsonb), ?, ?)";
+    private static final String FOREIGN_KEY_VIOLATION = "23503";
+
+    /**
+     * DROP discards the new entry, BLOCK waits up to app.audit.offer-timeout-ms for space and then discards it,
+     * CALLER_RUNS inserts the entry on the caller thread, in a transaction of its own so it neither joins nor
+     * outlives a rollback of the caller's.
+     */
+    public enum OverflowPolicy {
+        DROP, BLOCK, CALLER_RUNS
+    }
+
+    private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private TransactionTemplate entryTransaction;
+    private BlockingQueue<Entry> queue;
+    private Thread writer;
+    private volatile boolean running = true;
+
+    @Value("${app.audit.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${app.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:500}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${app.audit.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${app.audit.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        entryTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        entryTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        writer = new Thread(this::writeLoop, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive() || !queue.isEmpty()) {
+            log.warn("Audit writer did not drain in time, {} entries lost", queue.size());
+        }
+    }
 
     @Override
     @Transactional(readOnly = true)
-    public List<AuditLogDTO> getAllLogs() {
-        return auditLogRepository.findAll().stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
-    }
-
-    private AuditLogDTO toDTO(AuditLog log) {
-        return AuditLogDTO.builder()
-                .id(log.getId())
-                .userEmail(log.getUser() != null ? log.getUser().getEmail() : null)
-                .action(log.getAction())
-                .resource(log.getResource())
-                .anonymous(log.getAnonymous())
-                .details(log.getDetails())
-                .createdAt(log.getCreatedAt())
+    public AuditLogPageDTO findLogs(UUID userId, String action, String resource, LocalDateTime start, LocalDateTime end, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, maxPageSize));
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AuditLogDTO> query = cb.createQuery(AuditLogDTO.class);
+        Root<AuditLog> root = query.from(AuditLog.class);
+        // Email comes from the same query instead of a lazy user load per row
+        Join<AuditLog, User> user = root.join("user", JoinType.LEFT);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (userId != null) {
+            predicates.add(cb.equal(root.get("user").get("id"), userId));
+        }
+        if (action != null && !action.isBlank()) {
+            predicates.add(cb.equal(root.get("action"), action));
+        }
+        if (resource != null && !resource.isBlank()) {
+            predicates.add(cb.equal(root.get("resource"), resource));
+        }
+        if (start != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), start));
+        }
+        if (end != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), end));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor after = Cursor.decode(cursor);
+            // (created_at, id) < (cursor.createdAt, cursor.id), matching the index order
+            predicates.add(cb.or(
+                    cb.lessThan(root.get("createdAt"), after.createdAt()),
+                    cb.and(cb.equal(root.get("createdAt"), after.createdAt()), cb.lessThan(root.get("id"), after.id()))));
+        }
+
+        query.select(cb.construct(AuditLogDTO.class,
+                        root.get("id"), user.get("email"), root.get("action"), root.get("resource"),
+                        root.get("anonymous"), root.get("details"), root.get("createdAt")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+        // One extra row tells whether there is a next page without a count query
+        List<AuditLogDTO> rows = entityManager.createQuery(query)
+                .setMaxResults(limit + 1)
+                .getResultList();
+        boolean hasMore = rows.size() > limit;
+        List<AuditLogDTO> items = hasMore ? new ArrayList<>(rows.subList(0, limit)) : rows;
+
+        AuditLogDTO last = items.isEmpty() ? null : items.get(items.size() - 1);
+        return AuditLogPageDTO.builder()
+                .items(items)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? new Cursor(last.getCreatedAt(), last.getId()).encode() : null)
                 .build();
     }
 
     @Override
-    @Async // Audit logging should not block main business logic
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void log(User user, String action, String resource, Object details) {
-        saveLog(user, action, resource, details);
+        enqueue(user != null ? user.getId() : null, action, resource, details);
     }
 
     @Override
-    @Async
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void log(String action, String resource, Object details) {
-        User user = getCurrentUser();
-        saveLog(user, action, resource, details);
+        enqueue(getCurrentUserId(), action, resource, details);
     }
 
     @Override
-    @Async
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void logSecurityEvent(String action, String resource, String details) {
         // Security events might not have a logged-in user context available (e.g., failed login)
-        // Try to get user from context, otherwise null
-        User user = getCurrentUser();
-        saveLog(user, action, resource, details);
+        enqueue(getCurrentUserId(), action, resource, details);
     }
 
-    private void saveLog(User user, String action, String resource, Object details) {
+    private void enqueue(UUID userId, String action, String resource, Object details) {
+        String detailsJson;
         try {
             // Always serialize to JSON to ensure validity (even strings must be quoted for JSON columns)
-            String detailsJson = objectMapper.writeValueAsString(details);
+            detailsJson = objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize audit log details", e);
+            return;
+        }
 
-            AuditLog auditLog = AuditLog.builder()
-                    .user(user)
-                    .anonymous(user == null)
-                    .action(action)
-                    .resource(resource)
-                    .details(detailsJson)
-                    .build();
+        Entry entry = new Entry(userId, action, resource, detailsJson, Timestamp.from(Instant.now()));
+        if (queue.offer(entry)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case CALLER_RUNS -> writeOne(entry);
+            case BLOCK -> {
+                try {
+                    if (!queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        drop(entry);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(entry);
+                }
+            }
+            default -> drop(entry);
+        }
+    }
 
-            auditLogRepository.save(auditLog);
-            log.info("Audit Log: User={} Action={} Resource={}", user != null ? user.getEmail() : "Anonymous", action, resource);
+    // Entries that never reach the database, for a full queue or a failed insert
+    private void drop(Entry entry) {
+        long total = dropped.incrementAndGet();
+        // Logged sparingly, a full queue means the database is already struggling
+        if (total == 1 || total % 1000 == 0) {
+            log.warn("Audit queue full, dropped {} entries so far (latest: {} {})", total, entry.action(), entry.resource());
+        }
+    }
 
-        } catch (JsonProcessingException e) {
-            log.error("Failed to serialize audit log details", e);
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Entry first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // Shutdown: flush whatever is left without waiting for more
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Entry> batch) {
+        try {
+            entryTransaction.executeWithoutResult(status -> insert(batch));
+            log.debug("Wrote {} audit log entries", batch.size());
         } catch (Exception e) {
-            log.error("Failed to save audit log", e);
+            // One bad entry fails the whole batch, only that one should be lost
+            log.warn("Failed to save {} audit log entries as a batch, retrying them one by one", batch.size(), e);
+            batch.forEach(this::writeOne);
         }
     }
 
-    private User getCurrentUser() {
+    // Also used on the caller thread (CALLER_RUNS), which may be inside a transaction: each attempt commits on its
+    // own and a failure stays out of the caller's transaction
+    private void writeOne(Entry entry) {
         try {
-            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-            if (authentication != null && authentication.isAuthenticated() && !"anonymousUser".equals(authentication.getPrincipal())) {
-                String email = authentication.getName();
-                return userRepository.findByEmail(email).orElse(null);
+            insertOne(entry, entry.userId());
+            return;
+        } catch (Exception e) {
+            if (entry.userId() == null || !isForeignKeyViolation(e)) {
+                lose(entry, e);
+                return;
             }
+        }
+        try {
+            // The user was deleted after the entry was captured: kept like the older entries of deleted users
+            insertOne(entry, null);
         } catch (Exception e) {
-            // Ignore context errors
+            lose(entry, e);
+        }
+    }
+
+    private void lose(Entry entry, Exception e) {
+        long total = dropped.incrementAndGet();
+        log.error("Failed to save audit log entry {} {}, {} entries lost so far", entry.action(), entry.resource(), total, e);
+    }
+
+    private static boolean isForeignKeyViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && FOREIGN_KEY_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // In a transaction of its own, so a failed attempt can be retried; anonymous reflects who made the request
+    private void insertOne(Entry entry, UUID userId) {
+        entryTransaction.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL,
+                userId, entry.action(), entry.resource(), entry.detailsJson(), entry.userId() == null, entry.createdAt()));
+    }
+
+    private void insert(List<Entry> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (statement, entry) -> {
+            statement.setObject(1, entry.userId());
+            statement.setString(2, entry.action());
+            statement.setString(3, entry.resource());
+            statement.setString(4, entry.detailsJson());
+            statement.setBoolean(5, entry.userId() == null);
+            statement.setTimestamp(6, entry.createdAt());
+        });
+    }
+
+    // Read from the principal cached with the JWT, no database lookup on the request thread
+    private UUID getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
         }
         return null;
     }
+
+    // Opaque to clients: base64url of "<createdAt>|<id>" of the last row returned
+    private record Cursor(LocalDateTime createdAt, UUID id) {
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8).split("\\|", 2);
+                return new Cursor(LocalDateTime.parse(parts[0]), UUID.fromString(parts[1]));
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid audit log cursor");
+            }
+        }
+    }
+
+    private record Entry(UUID userId, String action, String resource, String detailsJson, Timestamp createdAt) {
+    }
 }
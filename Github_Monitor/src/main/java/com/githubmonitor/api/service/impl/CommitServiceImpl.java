@@ -0,0 +1,103 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.githubmonitor.api.dto.RepositoryMetricsDTO;
+import com.githubmonitor.api.entity.Event;
+import com.githubmonitor.api.service.CommitService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Commit facts extracted at ingest so commit metrics are aggregates over a narrow indexed table
+ * instead of parsing every push payload of the period.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CommitServiceImpl implements CommitService {
+
+    // A commit keeps its earliest push, later pushes of the same sha change nothing. Recording the push that introduced
+    // it again (archive backfill) replaces the author date V16 used when that push was already archived
+    private static final String INSERT_SQL = "INSERT INTO commits AS c (repository_id, sha, author, author_email, committed_at, "
+            + "files_added, files_modified, files_removed, event_id, pushed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (repository_id, sha) DO UPDATE SET pushed_at = EXCLUDED.pushed_at, event_id = EXCLUDED.event_id "
+            + "WHERE EXCLUDED.pushed_at < c.pushed_at OR (c.event_id = EXCLUDED.event_id AND c.pushed_at <> EXCLUDED.pushed_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void recordPush(Event event, JsonNode payload) {
+        JsonNode commits = payload.path("commits");
+        if (!commits.isArray() || commits.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime pushedAt = event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(commits.size());
+        for (JsonNode commit : commits) {
+            String sha = commit.path("id").asText(null);
+            if (sha == null || sha.isEmpty()) {
+                continue;
+            }
+            JsonNode author = commit.path("author");
+            String login = author.path("username").asText("");
+            rows.add(new Object[]{
+                    event.getRepository().getId(),
+                    sha,
+                    login.isEmpty() ? author.path("name").asText(null) : login,
+                    author.path("email").asText(null),
+                    Timestamp.valueOf(committedAt(commit, pushedAt)),
+                    commit.path("added").size(),
+                    commit.path("modified").size(),
+                    commit.path("removed").size(),
+                    event.getId(),
+                    Timestamp.valueOf(pushedAt)
+            });
+        }
+        if (!rows.isEmpty()) {
+            // Joins the webhook transaction, so commits and their push event are stored together
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+    }
+
+    private LocalDateTime committedAt(JsonNode commit, LocalDateTime pushedAt) {
+        String timestamp = commit.path("timestamp").asText(null);
+        if (timestamp != null) {
+            try {
+                return OffsetDateTime.parse(timestamp).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            } catch (DateTimeParseException e) {
+                log.debug("Invalid commit timestamp {}", timestamp);
+            }
+        }
+        return pushedAt;
+    }
+
+    // Periods are by push time: a rebased or cherry-picked commit keeps its old author date but counts when it arrives
+    @Override
+    public long countCommits(UUID repositoryId, LocalDateTime since) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM commits WHERE repository_id = ? AND pushed_at >= ?",
+                Long.class, repositoryId, Timestamp.valueOf(since));
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public List<RepositoryMetricsDTO.ContributorMetric> topAuthors(UUID repositoryId, LocalDateTime since, int limit) {
+        return jdbcTemplate.query(
+                "SELECT COALESCE(author, 'unknown') AS author, COUNT(*) AS commits FROM commits "
+                        + "WHERE repository_id = ? AND pushed_at >= ? GROUP BY 1 ORDER BY 2 DESC, 1 LIMIT ?",
+                (rs, rowNum) -> new RepositoryMetricsDTO.ContributorMetric(rs.getString("author"), rs.getInt("commits")),
+                repositoryId, Timestamp.valueOf(since), limit);
+    }
+}
@@ -1,27 +1,24 @@
 package com.githubmonitor.api.service.impl;
 
-import com.githubmonitor.api.dto.AlertDTO;
-import com.githubmonitor.api.dto.EventDTO;
-import com.githubmonitor.api.dto.RepositoryDTO;
+import com.githubmonitor.api.dto.DashboardSummaryDTO;
+import com.githubmonitor.api.dto.ExportRequestDTO;
 import com.githubmonitor.api.service.AlertService;
 import com.githubmonitor.api.service.DashboardService;
+import com.githubmonitor.api.service.DashboardSummaryService;
 import com.githubmonitor.api.service.EventService;
 import com.githubmonitor.api.service.RepositoryService;
 import lombok.RequiredArgsConstructor;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFColor;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.function.LongConsumer;
 
 @Service
 @RequiredArgsConstructor
@@ -30,49 +27,104 @@ public class DashboardServiceImpl implements DashboardService {
     private final RepositoryService repositoryService;
     private final EventService eventService;
     private final AlertService alertService;
+    private final DashboardSummaryService dashboardSummaryService;
 
+    private static final int ROW_WINDOW = 100;
+    // Excel's limit is 1,048,576 rows per sheet, the first one being the header
+    private static final int MAX_DATA_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yy HH:mm:ss");
 
+    private int maxDataRows = MAX_DATA_ROWS;
+
+    @Override
+    public long countExportRows(ExportRequestDTO request) {
+        long[] totals = countTotals(request);
+        long total = 0;
+        if (request.includes(ExportRequestDTO.Sheet.REPOSITORIES)) {
+            total += totals[0];
+        }
+        if (request.includes(ExportRequestDTO.Sheet.EVENTS)) {
+            total += totals[1];
+        }
+        if (request.includes(ExportRequestDTO.Sheet.ALERTS)) {
+            total += totals[2];
+        }
+        return total;
+    }
+
     @Override
-    public byte[] generateExcelReport() {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    public void writeExcelReport(ExportRequestDTO request, OutputStream out, LongConsumer rowsWritten) {
+        // Streaming workbook: only the last ROW_WINDOW rows of a sheet stay in heap, older rows are flushed to a temp file
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
             
             // Styles
             CellStyle headerStyle = createHeaderStyle(workbook);
             CellStyle dataStyle = createDataStyle(workbook);
             CellStyle dateStyle = createDataStyle(workbook); // Currently same as data style, but can be customized
 
+            long[] written = {0};
+            Runnable onRow = () -> rowsWritten.accept(++written[0]);
+
             // 1. Overview Sheet
-            createOverviewSheet(workbook, headerStyle, dataStyle);
+            if (request.includes(ExportRequestDTO.Sheet.OVERVIEW)) {
+                createOverviewSheet(workbook, request, headerStyle, dataStyle);
+            }
 
             // 2. Repositories Sheet
-            createRepositoriesSheet(workbook, headerStyle, dataStyle);
+            if (request.includes(ExportRequestDTO.Sheet.REPOSITORIES)) {
+                createRepositoriesSheet(workbook, request, headerStyle, dataStyle, onRow);
+            }
 
-            // 3. Events Sheet (Last 1000)
-            createEventsSheet(workbook, headerStyle, dataStyle);
+            // 3. Events Sheet
+            if (request.includes(ExportRequestDTO.Sheet.EVENTS)) {
+                createEventsSheet(workbook, request, headerStyle, dataStyle, onRow);
+            }
 
             // 4. Alerts Sheet
-            createAlertsSheet(workbook, headerStyle, dataStyle);
+            if (request.includes(ExportRequestDTO.Sheet.ALERTS)) {
+                createAlertsSheet(workbook, request, headerStyle, dataStyle, onRow);
+            }
 
             workbook.write(out);
-            return out.toByteArray();
         } catch (IOException e) {
             throw new RuntimeException("Failed to generate Excel report", e);
+        } finally {
+            workbook.dispose();
         }
     }
 
-    private void createOverviewSheet(Workbook workbook, CellStyle headerStyle, CellStyle dataStyle) {
+    // Repositories, events and alerts matching the filters
+    private long[] countTotals(ExportRequestDTO request) {
+        if (request.getStart() == null && request.getEnd() == null) {
+            // No date range: served from the in-memory dashboard summary instead of COUNT(*) scans
+            if (request.getRepositoryId() != null) {
+                DashboardSummaryDTO.RepositorySummary repository = dashboardSummaryService.getRepositorySummary(request.getRepositoryId());
+                return new long[]{1, repository.getEvents(), repository.getAlerts()};
+            }
+            DashboardSummaryDTO summary = dashboardSummaryService.getSummary();
+            return new long[]{summary.getTotalRepositories(), summary.getTotalEvents(), summary.getTotalAlerts()};
+        }
+
+        return new long[]{
+                request.getRepositoryId() != null ? 1 : dashboardSummaryService.getSummary().getTotalRepositories(),
+                eventService.count(request.getRepositoryId(), null, request.getStart(), request.getEnd()),
+                alertService.count(request.getRepositoryId(), request.getStart(), request.getEnd())
+        };
+    }
+
+    private void createOverviewSheet(Workbook workbook, ExportRequestDTO request, CellStyle headerStyle, CellStyle dataStyle) {
         Sheet sheet = workbook.createSheet("Overview");
         Row header = sheet.createRow(0);
         
         createCell(header, 0, "Metric", headerStyle);
         createCell(header, 1, "Value", headerStyle);
 
-        // Fetch counts (fetching first page to get totalElements)
-        Pageable pageable = PageRequest.of(0, 1);
-        long totalRepos = repositoryService.findAll(pageable).getTotalElements();
-        long totalEvents = eventService.findAll(null, null, null, null, pageable).getTotalElements();
-        long totalAlerts = alertService.findAll(null, pageable).getTotalElements();
+        long[] totals = countTotals(request);
+        long totalRepos = totals[0];
+        long totalEvents = totals[1];
+        long totalAlerts = totals[2];
 
         int rowIdx = 1;
         Row r1 = sheet.createRow(rowIdx++);
@@ -92,18 +144,13 @@ public class DashboardServiceImpl implements DashboardService {
         createCell(r4, 1, java.time.LocalDateTime.now().format(DATE_FORMATTER), dataStyle);
     }
 
-    private void createRepositoriesSheet(Workbook workbook, CellStyle headerStyle, CellStyle dataStyle) {
-        Sheet sheet = workbook.createSheet("Repositories");
+    private void createRepositoriesSheet(Workbook workbook, ExportRequestDTO request, CellStyle headerStyle, CellStyle dataStyle, Runnable onRow) {
         String[] headers = {"ID", "Name", "Owner", "Language", "Status", "Last Synced"};
-        
-        createHeaderRow(sheet, headers, headerStyle);
+        RollingSheet sheet = new RollingSheet(workbook, "Repositories", headers, headerStyle);
 
-        // Fetch all repositories (up to 1000 for report)
-        Page<RepositoryDTO> repos = repositoryService.findAll(PageRequest.of(0, 1000, Sort.by(Sort.Direction.DESC, "lastSyncedAt")));
-        
-        int rowIdx = 1;
-        for (RepositoryDTO repo : repos.getContent()) {
-            Row row = sheet.createRow(rowIdx++);
+        // Rows are read through a database cursor and written as they arrive
+        repositoryService.forEach(request.getRepositoryId(), repo -> {
+            Row row = sheet.nextRow();
             createCell(row, 0, repo.getId() != null ? repo.getId().toString() : "", dataStyle);
             createCell(row, 1, repo.getName() != null ? repo.getName() : "N/A", dataStyle);
             createCell(row, 2, repo.getOwner() != null ? repo.getOwner() : "N/A", dataStyle);
@@ -115,14 +162,13 @@ public class DashboardServiceImpl implements DashboardService {
             } else {
                 createCell(row, 5, "-", dataStyle);
             }
-        }
+            onRow.run();
+        });
     }
 
-    private void createEventsSheet(Workbook workbook, CellStyle headerStyle, CellStyle dataStyle) {
-        Sheet sheet = workbook.createSheet("Recent Events");
+    private void createEventsSheet(Workbook workbook, ExportRequestDTO request, CellStyle headerStyle, CellStyle dataStyle, Runnable onRow) {
         String[] headers = {"ID", "Type", "User", "Branch", "Repository ID", "Date"};
-        
-        createHeaderRow(sheet, headers, headerStyle);
+        RollingSheet sheet = new RollingSheet(workbook, "Events", headers, headerStyle);
 
         // Define conditional styles for Event Types (Using Pastel RGB Colors)
         CellStyle pushStyle = createRGBStyle(workbook, new byte[]{(byte)220, (byte)240, (byte)255});   // Pastel Blue
@@ -131,11 +177,8 @@ public class DashboardServiceImpl implements DashboardService {
         CellStyle releaseStyle = createRGBStyle(workbook, new byte[]{(byte)230, (byte)255, (byte)230});// Pastel Green
         CellStyle defaultStyle = dataStyle;
 
-        Page<EventDTO> events = eventService.findAll(null, null, null, null, PageRequest.of(0, 1000, Sort.by(Sort.Direction.DESC, "createdAt")));
-        
-        int rowIdx = 1;
-        for (EventDTO event : events.getContent()) {
-            Row row = sheet.createRow(rowIdx++);
+        eventService.forEach(request.getRepositoryId(), null, request.getStart(), request.getEnd(), event -> {
+            Row row = sheet.nextRow();
             
             // Determine style based on Event Type
             CellStyle rowStyle = defaultStyle;
@@ -158,14 +201,13 @@ public class DashboardServiceImpl implements DashboardService {
             if (event.getCreatedAt() != null) {
                 createCell(row, 5, event.getCreatedAt().format(DATE_FORMATTER), rowStyle);
             }
-        };
+            onRow.run();
+        });
     }
 
-    private void createAlertsSheet(Workbook workbook, CellStyle headerStyle, CellStyle dataStyle) {
-        Sheet sheet = workbook.createSheet("Alerts");
+    private void createAlertsSheet(Workbook workbook, ExportRequestDTO request, CellStyle headerStyle, CellStyle dataStyle, Runnable onRow) {
         String[] headers = {"ID", "Severity", "Rule", "User", "Branch", "Message", "Status", "Created At"};
-        
-        createHeaderRow(sheet, headers, headerStyle);
+        RollingSheet sheet = new RollingSheet(workbook, "Alerts", headers, headerStyle);
 
         // Define conditional styles for Alert Status
         CellStyle openStyle = createColoredStyle(workbook, IndexedColors.LIGHT_CORNFLOWER_BLUE.getIndex()); // Using a reddish tone might be better but standard palette is limited, using Blue/Green logic
@@ -173,11 +215,8 @@ public class DashboardServiceImpl implements DashboardService {
         CellStyle statusOpenStyle = createColoredStyle(workbook, IndexedColors.ROSE.getIndex());
         CellStyle statusResolvedStyle = createColoredStyle(workbook, IndexedColors.LIGHT_GREEN.getIndex());
 
-        Page<AlertDTO> alerts = alertService.findAll(null, PageRequest.of(0, 1000, Sort.by(Sort.Direction.DESC, "createdAt")));
-        
-        int rowIdx = 1;
-        for (AlertDTO alert : alerts.getContent()) {
-            Row row = sheet.createRow(rowIdx++);
+        alertService.forEach(request.getRepositoryId(), request.getStart(), request.getEnd(), alert -> {
+            Row row = sheet.nextRow();
             
             // Determine style based on Alert Status
             CellStyle rowStyle = dataStyle;
@@ -200,7 +239,8 @@ public class DashboardServiceImpl implements DashboardService {
             if (alert.getCreatedAt() != null) {
                 createCell(row, 7, alert.getCreatedAt().format(DATE_FORMATTER), rowStyle);
             }
-        }
+            onRow.run();
+        });
     }
 
     // Helper Methods
@@ -249,8 +289,8 @@ public class DashboardServiceImpl implements DashboardService {
     }
 
     private CellStyle createRGBStyle(Workbook workbook, byte[] rgb) {
-        XSSFWorkbook xssfWorkbook = (XSSFWorkbook) workbook;
-        XSSFCellStyle style = xssfWorkbook.createCellStyle();
+        // SXSSF styles are backed by the underlying XSSF workbook
+        XSSFCellStyle style = (XSSFCellStyle) workbook.createCellStyle();
         style.setBorderBottom(BorderStyle.THIN);
         style.setBorderTop(BorderStyle.THIN);
         style.setBorderLeft(BorderStyle.THIN);
@@ -269,6 +309,38 @@ public class DashboardServiceImpl implements DashboardService {
         }
     }
 
+    // A sheet that continues on "Events (2)", "Events (3)"... with the header repeated once maxDataRows are written
+    private final class RollingSheet {
+        private final Workbook workbook;
+        private final String name;
+        private final String[] headers;
+        private final CellStyle headerStyle;
+        private Sheet sheet;
+        private int part = 1;
+        private int rowIdx;
+
+        RollingSheet(Workbook workbook, String name, String[] headers, CellStyle headerStyle) {
+            this.workbook = workbook;
+            this.name = name;
+            this.headers = headers;
+            this.headerStyle = headerStyle;
+            start(name);
+        }
+
+        Row nextRow() {
+            if (rowIdx > maxDataRows) {
+                start(name + " (" + ++part + ")");
+            }
+            return sheet.createRow(rowIdx++);
+        }
+
+        private void start(String sheetName) {
+            sheet = workbook.createSheet(sheetName);
+            createHeaderRow(sheet, headers, headerStyle);
+            rowIdx = 1;
+        }
+    }
+
     private void createCell(Row row, int col, String value, CellStyle style) {
         Cell cell = row.createCell(col);
         cell.setCellValue(value);
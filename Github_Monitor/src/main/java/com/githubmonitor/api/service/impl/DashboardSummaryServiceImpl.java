@@ -0,0 +1,264 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.dto.DashboardSummaryDTO;
+import com.githubmonitor.api.entity.Alert;
+import com.githubmonitor.api.entity.Event;
+import com.githubmonitor.api.repository.AlertRepository;
+import com.githubmonitor.api.repository.EventRepository;
+import com.githubmonitor.api.repository.RepositoryRepository;
+import com.githubmonitor.api.service.DashboardSummaryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dashboard counts kept in memory: counters are bumped by the ingest and alert pipelines after their
+ * transactions commit, and replaced by GROUP BY counts from the database on a schedule to correct any drift.
+ * Event counts include the cold tier (archived_event_counts), like EventService.count.
+ * The rendered summary is cached with the version it was built from and rebuilt once any change bumps it,
+ * so reading it costs no query.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardSummaryServiceImpl implements DashboardSummaryService {
+
+    private static final Event.EventType[] EVENT_TYPES = Event.EventType.values();
+    private static final Alert.Status[] ALERT_STATUSES = Alert.Status.values();
+    private static final Alert.Severity[] ALERT_SEVERITIES = Alert.Severity.values();
+
+    private final RepositoryRepository repositoryRepository;
+    private final EventRepository eventRepository;
+    private final AlertRepository alertRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Map<UUID, RepositoryCounters> counters;
+    private volatile LocalDateTime reconciledAt;
+    private volatile CachedSummary cached;
+
+    @Override
+    public DashboardSummaryDTO getSummary() {
+        CachedSummary current = cached;
+        long built = version.get();
+        if (current != null && current.version == built) {
+            return current.summary;
+        }
+        // Read before the counters: a change applied while building bumps the version past this one,
+        // so a summary that may have missed it is never served
+        DashboardSummaryDTO summary = buildSummary(currentCounters());
+        cached = new CachedSummary(built, summary);
+        return summary;
+    }
+
+    @Override
+    public DashboardSummaryDTO.RepositorySummary getRepositorySummary(UUID repositoryId) {
+        RepositoryCounters repository = currentCounters().get(repositoryId);
+        return repository != null ? repository.toSummary(repositoryId) : new DashboardSummaryDTO.RepositorySummary(repositoryId, 0, 0, 0);
+    }
+
+    @Override
+    public void recordRepositoryCreated(UUID repositoryId) {
+        afterCommit(() -> currentCounters().putIfAbsent(repositoryId, new RepositoryCounters()));
+    }
+
+    @Override
+    public void recordRepositoryDeleted(UUID repositoryId) {
+        // Events and alerts are removed with the repository (ON DELETE CASCADE)
+        afterCommit(() -> currentCounters().remove(repositoryId));
+    }
+
+    @Override
+    public void recordEvent(UUID repositoryId, Event.EventType type) {
+        afterCommit(() -> countersFor(repositoryId).events[type.ordinal()].increment());
+    }
+
+    @Override
+    public void recordAlertCreated(UUID repositoryId, Alert.Severity severity) {
+        afterCommit(() -> countersFor(repositoryId).alerts[Alert.Status.OPEN.ordinal()][severity.ordinal()].increment());
+    }
+
+    @Override
+    public void recordAlertResolved(UUID repositoryId, Alert.Severity severity) {
+        afterCommit(() -> {
+            LongAdder[][] alerts = countersFor(repositoryId).alerts;
+            alerts[Alert.Status.OPEN.ordinal()][severity.ordinal()].decrement();
+            alerts[Alert.Status.RESOLVED.ordinal()][severity.ordinal()].increment();
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.dashboard.summary.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        long startedAt = System.currentTimeMillis();
+        // Hot rows first, then the archive, in one transaction: the hot query's partition locks hold off an archiving
+        // truncate until both are read, so no month is counted in both tiers or in neither
+        Map<UUID, RepositoryCounters> fresh = transactionTemplate.execute(status -> loadCounters());
+
+        // Increments that land between the queries and this swap are lost until the next run
+        counters = fresh;
+        reconciledAt = LocalDateTime.now();
+        version.incrementAndGet();
+        log.debug("Dashboard summary reconciled in {} ms", System.currentTimeMillis() - startedAt);
+    }
+
+    private Map<UUID, RepositoryCounters> loadCounters() {
+        Map<UUID, RepositoryCounters> fresh = new ConcurrentHashMap<>();
+        repositoryRepository.findAllIds().forEach(id -> fresh.put(id, new RepositoryCounters()));
+
+        for (Object[] row : eventRepository.countByRepositoryAndType()) {
+            RepositoryCounters repository = fresh.computeIfAbsent((UUID) row[0], id -> new RepositoryCounters());
+            repository.events[((Event.EventType) row[1]).ordinal()].add((Long) row[2]);
+        }
+        jdbcTemplate.query("SELECT repository_id, type, SUM(event_count) AS event_count FROM archived_event_counts GROUP BY repository_id, type",
+                (RowCallbackHandler) rs -> {
+                    RepositoryCounters repository = fresh.computeIfAbsent(rs.getObject("repository_id", UUID.class), id -> new RepositoryCounters());
+                    repository.events[Event.EventType.valueOf(rs.getString("type")).ordinal()].add(rs.getLong("event_count"));
+                });
+        for (Object[] row : alertRepository.countByRepositoryStatusAndSeverity()) {
+            RepositoryCounters repository = fresh.computeIfAbsent((UUID) row[0], id -> new RepositoryCounters());
+            Alert.Status status = row[1] != null ? (Alert.Status) row[1] : Alert.Status.OPEN;
+            repository.alerts[status.ordinal()][((Alert.Severity) row[2]).ordinal()].add((Long) row[3]);
+        }
+        return fresh;
+    }
+
+    private Map<UUID, RepositoryCounters> currentCounters() {
+        Map<UUID, RepositoryCounters> current = counters;
+        if (current == null) {
+            synchronized (this) {
+                if (counters == null) {
+                    reconcile();
+                }
+                current = counters;
+            }
+        }
+        return current;
+    }
+
+    private RepositoryCounters countersFor(UUID repositoryId) {
+        return currentCounters().computeIfAbsent(repositoryId, id -> new RepositoryCounters());
+    }
+
+    private void afterCommit(Runnable update) {
+        Runnable apply = () -> {
+            update.run();
+            version.incrementAndGet();
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    private DashboardSummaryDTO buildSummary(Map<UUID, RepositoryCounters> snapshot) {
+        long[] eventsByType = new long[EVENT_TYPES.length];
+        long[][] alerts = new long[ALERT_STATUSES.length][ALERT_SEVERITIES.length];
+        List<DashboardSummaryDTO.RepositorySummary> repositories = new ArrayList<>(snapshot.size());
+
+        snapshot.forEach((id, repository) -> {
+            for (int t = 0; t < EVENT_TYPES.length; t++) {
+                eventsByType[t] += repository.events[t].sum();
+            }
+            for (int s = 0; s < ALERT_STATUSES.length; s++) {
+                for (int v = 0; v < ALERT_SEVERITIES.length; v++) {
+                    alerts[s][v] += repository.alerts[s][v].sum();
+                }
+            }
+            repositories.add(repository.toSummary(id));
+        });
+
+        Map<String, Long> eventsByTypeMap = new LinkedHashMap<>();
+        long totalEvents = 0;
+        for (int t = 0; t < EVENT_TYPES.length; t++) {
+            eventsByTypeMap.put(EVENT_TYPES[t].name(), eventsByType[t]);
+            totalEvents += eventsByType[t];
+        }
+
+        Map<String, Long> alertsByStatus = new LinkedHashMap<>();
+        Map<String, Long> alertsBySeverity = new LinkedHashMap<>();
+        long totalAlerts = 0;
+        for (int s = 0; s < ALERT_STATUSES.length; s++) {
+            for (int v = 0; v < ALERT_SEVERITIES.length; v++) {
+                alertsByStatus.merge(ALERT_STATUSES[s].name(), alerts[s][v], Long::sum);
+                alertsBySeverity.merge(ALERT_SEVERITIES[v].name(), alerts[s][v], Long::sum);
+                totalAlerts += alerts[s][v];
+            }
+        }
+
+        return DashboardSummaryDTO.builder()
+                .totalRepositories(snapshot.size())
+                .totalEvents(totalEvents)
+                .totalAlerts(totalAlerts)
+                .openAlerts(alertsByStatus.get(Alert.Status.OPEN.name()))
+                .eventsByType(eventsByTypeMap)
+                .alertsByStatus(alertsByStatus)
+                .alertsBySeverity(alertsBySeverity)
+                .repositories(repositories)
+                .reconciledAt(reconciledAt)
+                .build();
+    }
+
+    private record CachedSummary(long version, DashboardSummaryDTO summary) {
+    }
+
+    private static class RepositoryCounters {
+        private final LongAdder[] events = newAdders(EVENT_TYPES.length);
+        private final LongAdder[][] alerts = new LongAdder[ALERT_STATUSES.length][];
+
+        RepositoryCounters() {
+            for (int s = 0; s < alerts.length; s++) {
+                alerts[s] = newAdders(ALERT_SEVERITIES.length);
+            }
+        }
+
+        DashboardSummaryDTO.RepositorySummary toSummary(UUID id) {
+            long eventCount = 0;
+            for (LongAdder adder : events) {
+                eventCount += adder.sum();
+            }
+            long alertCount = 0;
+            long openCount = 0;
+            for (int s = 0; s < alerts.length; s++) {
+                for (LongAdder adder : alerts[s]) {
+                    alertCount += adder.sum();
+                    if (s == Alert.Status.OPEN.ordinal()) {
+                        openCount += adder.sum();
+                    }
+                }
+            }
+            return new DashboardSummaryDTO.RepositorySummary(id, eventCount, alertCount, openCount);
+        }
+
+        private static LongAdder[] newAdders(int size) {
+            LongAdder[] adders = new LongAdder[size];
+            for (int i = 0; i < size; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+    }
+}
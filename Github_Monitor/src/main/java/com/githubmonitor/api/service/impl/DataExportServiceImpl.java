@@ -0,0 +1,114 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.dto.AlertDTO;
+import com.githubmonitor.api.dto.EventDTO;
+import com.githubmonitor.api.service.AlertService;
+import com.githubmonitor.api.service.DataExportService;
+import com.githubmonitor.api.service.EventService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Row-by-row exports for notebooks and backfills. Rows come from the services' database cursors and are
+ * written as they arrive, so memory use does not depend on the size of the export.
+ */
+@Service
+@RequiredArgsConstructor
+public class DataExportServiceImpl implements DataExportService {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private static final String[] EVENT_COLUMNS = {"id", "type", "repositoryId", "actor", "author", "action", "branch", "message", "url", "eventDate", "createdAt"};
+    private static final String[] ALERT_COLUMNS = {"id", "ruleType", "eventId", "severity", "status", "branch", "authorLogin", "message", "createdAt", "resolvedAt"};
+
+    private final EventService eventService;
+    private final AlertService alertService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void writeEvents(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end, Format format, boolean gzip, OutputStream out) {
+        write(format, gzip, out, EVENT_COLUMNS,
+                (Consumer<EventDTO> sink) -> eventService.forEach(repositoryId, type, start, end, sink),
+                event -> new Object[]{event.getId(), event.getType(), event.getRepositoryId(), event.getActor(), event.getAuthor(),
+                        event.getAction(), event.getBranch(), event.getMessage(), event.getUrl(), event.getEventDate(), event.getCreatedAt()});
+    }
+
+    @Override
+    public void writeAlerts(UUID repositoryId, LocalDateTime start, LocalDateTime end, Format format, boolean gzip, OutputStream out) {
+        write(format, gzip, out, ALERT_COLUMNS,
+                (Consumer<AlertDTO> sink) -> alertService.forEach(repositoryId, start, end, sink),
+                alert -> new Object[]{alert.getId(), alert.getRuleType(), alert.getEventId(), alert.getSeverity(), alert.getStatus(),
+                        alert.getBranch(), alert.getAuthorLogin(), alert.getMessage(), alert.getCreatedAt(), alert.getResolvedAt()});
+    }
+
+    private <T> void write(Format format, boolean gzip, OutputStream out, String[] columns,
+                           Consumer<Consumer<T>> source, Function<T, Object[]> csvRow) {
+        try {
+            // syncFlush so every periodic flush reaches the client instead of waiting in the deflater
+            GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, 8192, true) : null;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipStream : out, StandardCharsets.UTF_8));
+
+            if (format == Format.CSV) {
+                writeCsvLine(writer, columns);
+            }
+
+            long[] rows = {0};
+            source.accept(row -> {
+                try {
+                    if (format == Format.CSV) {
+                        writeCsvLine(writer, csvRow.apply(row));
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                    if (++rows[0] % FLUSH_EVERY == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            writer.flush();
+            if (gzipStream != null) {
+                // Not closed: the servlet container owns the response stream
+                gzipStream.finish();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] != null) {
+                writer.write(escapeCsv(values[i].toString()));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,237 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.service.DiffCacheService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Two-tier diff cache: an LRU of parsed diffs in heap, backed by gzip'd JSON files on local disk.
+ * Keys are content addressed (commit SHA, or PR number plus head SHA), so entries never need invalidation.
+ * A file's mtime is when its diff was last fetched or revalidated; files untouched for app.diff-cache.disk-max-age-days
+ * are removed, and the oldest ones go first once the directory grows past app.diff-cache.disk-max-bytes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DiffCacheServiceImpl implements DiffCacheService {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ObjectMapper objectMapper;
+
+    private Map<String, CachedDiff> memory;
+    private Path directory;
+
+    @Value("${app.diff-cache.dir:./data/diff-cache}")
+    private String directoryPath;
+
+    @Value("${app.diff-cache.memory-entries:500}")
+    private int memoryEntries;
+
+    @Value("${app.diff-cache.disk-max-bytes:1073741824}")
+    private long diskMaxBytes;
+
+    @Value("${app.diff-cache.disk-max-age-days:30}")
+    private int diskMaxAgeDays;
+
+    @PostConstruct
+    public void init() {
+        memory = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDiff> eldest) {
+                return size() > memoryEntries;
+            }
+        });
+
+        directory = Paths.get(directoryPath);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            log.warn("Diff cache directory {} is not writable, using memory tier only", directory, e);
+            directory = null;
+        }
+    }
+
+    @Override
+    public CachedDiff get(String key) {
+        CachedDiff cached = memory.get(key);
+        if (cached != null || directory == null) {
+            return cached;
+        }
+
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            cached = objectMapper.readValue(in, CachedDiff.class);
+            // Revalidations only move the mtime forward
+            long revalidatedAt = Files.getLastModifiedTime(file).toMillis();
+            if (revalidatedAt > cached.fetchedAt()) {
+                cached = new CachedDiff(cached.files(), cached.etag(), revalidatedAt);
+            }
+            memory.put(key, cached);
+            return cached;
+        } catch (NoSuchFileException e) {
+            // Evicted in the meantime
+            return null;
+        } catch (IOException e) {
+            log.warn("Discarding unreadable diff cache entry {}", file, e);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, CachedDiff diff) {
+        memory.put(key, diff);
+        if (directory == null) {
+            return;
+        }
+
+        Path file = fileFor(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), "diff", TEMP_SUFFIX);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                objectMapper.writeValue(out, diff);
+            }
+            // Readers only ever see complete files
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(diff.fetchedAt()));
+        } catch (IOException e) {
+            log.warn("Failed to persist diff cache entry {}", key, e);
+        } finally {
+            // Gone already after a successful move
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public void touch(String key, long fetchedAt) {
+        memory.computeIfPresent(key, (k, cached) -> new CachedDiff(cached.files(), cached.etag(), fetchedAt));
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(fileFor(key), FileTime.fromMillis(fetchedAt));
+        } catch (NoSuchFileException e) {
+            // Evicted from disk, the memory tier still has it
+        } catch (IOException e) {
+            log.warn("Failed to refresh diff cache entry {}", key, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.diff-cache.eviction-interval-ms:600000}", initialDelay = 60000)
+    public void evict() {
+        if (directory == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long maxAgeCutoff = now - TimeUnit.DAYS.toMillis(diskMaxAgeDays);
+        List<CacheFile> files = new ArrayList<>();
+        long totalBytes = 0;
+        int deleted = 0;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                long modified = attributes.lastModifiedTime().toMillis();
+                boolean abandonedTemp = path.getFileName().toString().endsWith(TEMP_SUFFIX) && modified < now - TimeUnit.HOURS.toMillis(1);
+                if (abandonedTemp || modified < maxAgeCutoff) {
+                    deleted += deleteQuietly(path) ? 1 : 0;
+                } else {
+                    files.add(new CacheFile(path, modified, attributes.size()));
+                    totalBytes += attributes.size();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to scan diff cache directory {}", directory, e);
+            return;
+        }
+
+        if (totalBytes > diskMaxBytes) {
+            files.sort(Comparator.comparingLong(CacheFile::modified));
+            for (CacheFile file : files) {
+                if (totalBytes <= diskMaxBytes) {
+                    break;
+                }
+                if (deleteQuietly(file.path())) {
+                    totalBytes -= file.size();
+                    deleted++;
+                }
+            }
+        }
+        if (deleted > 0) {
+            log.info("Evicted {} diff cache files, {} bytes left on disk", deleted, totalBytes);
+        }
+    }
+
+    private static boolean deleteQuietly(Path path) {
+        if (path == null) {
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Failed to delete diff cache file {}", path, e);
+            return false;
+        }
+    }
+
+    private Path fileFor(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            String hex = HexFormat.of().formatHex(hash);
+            return directory.resolve(hex.substring(0, 2)).resolve(hex + ".json.gz");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CacheFile(Path path, long modified, long size) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.entity.Notification;
+import com.githubmonitor.api.service.NotificationChannel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * E-mail channel stub: renders the message an SMTP relay would receive and logs it.
+ * Swap the body of send() for a JavaMailSender call once an SMTP server is available.
+ */
+@Service
+@Slf4j
+public class EmailNotificationChannelImpl implements NotificationChannel {
+
+    public static final String NAME = "EMAIL";
+
+    @Value("${app.notifications.email.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.notifications.email.from:github-monitor@localhost}")
+    private String from;
+
+    @Value("${app.notifications.email.to:}")
+    private String to;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled && to != null && !to.isBlank();
+    }
+
+    @Override
+    public void send(Notification notification) {
+        log.info("SMTP stub: From: {} To: {} Subject: {}\n{}", from, to, notification.getTitle(), notification.getMessage());
+    }
+}
@@ -0,0 +1,701 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.entity.Event;
+import com.githubmonitor.api.service.DashboardSummaryService;
+import com.githubmonitor.api.service.EventArchiveService;
+import com.githubmonitor.api.service.EventPayloadCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archives whole monthly events partitions (see V7) once their month ended more than app.archive.after-days ago.
+ * Each repository gets one immutable segment per month under app.archive.dir/<repositoryId>/:
+ * <ul>
+ *     <li>YYYYMM.seg: gzip'd blocks of app.archive.block-size events as NDJSON, newest first</li>
+ *     <li>YYYYMM.idx: one fixed-size entry per block (newest and oldest created_at, offset, length, count),
+ *     memory-mapped and binary searched so a time-bounded read only inflates the blocks it needs</li>
+ * </ul>
+ * Files are written to temp files and moved into place before the partition is truncated. The month is only
+ * registered in archived_event_months in the same transaction as the truncate. Readers query the hot table first
+ * and then archived_event_months within one transaction: the hot query's lock on the partition makes the truncate
+ * wait for them, so every event is seen in exactly one tier, on every node. Reads without a repository merge the
+ * segments of all repositories month by month. With several API nodes the archive directory must be shared storage.
+ * The truncate waits at most app.archive.lock-timeout-ms for those readers (export cursors can hold the partition for
+ * long), so later queries on the month never queue behind it; a month that times out is retried on the next run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventArchiveServiceImpl implements EventArchiveService {
+
+    private static final int INDEX_ENTRY_BYTES = 32;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String LOCK_NOT_AVAILABLE = "55P03";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final DashboardSummaryService dashboardSummaryService;
+    private final EventPayloadCodec eventPayloadCodec;
+
+    private Path directory;
+    private Map<Path, MappedByteBuffer> indexes;
+
+    @Value("${app.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.archive.dir:./data/archive}")
+    private String directoryPath;
+
+    @Value("${app.archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${app.archive.block-size:256}")
+    private int blockSize;
+
+    @Value("${app.archive.cached-indexes:256}")
+    private int cachedIndexes;
+
+    @Value("${app.archive.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.archive.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Paths.get(directoryPath);
+        Files.createDirectories(directory);
+        indexes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, MappedByteBuffer> eldest) {
+                return size() > cachedIndexes;
+            }
+        });
+    }
+
+    // Newest first; read on every call, the table has one row per archived month
+    private List<YearMonth> archivedMonths() {
+        return jdbcTemplate.queryForList("SELECT month FROM archived_event_months ORDER BY month DESC", Date.class)
+                .stream()
+                .map(month -> YearMonth.from(month.toLocalDate()))
+                .toList();
+    }
+
+    @Override
+    @Scheduled(cron = "${app.archive.cron:0 45 3 * * *}")
+    public void archiveExpired() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth lastEligible = YearMonth.from(LocalDate.now(ZoneOffset.UTC).minusDays(afterDays)).minusMonths(1);
+        Set<YearMonth> archived = new HashSet<>(archivedMonths());
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'events'::regclass ORDER BY c.relname",
+                String.class);
+
+        boolean changed = false;
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month == null || month.isAfter(lastEligible) || archived.contains(month)) {
+                continue;
+            }
+            try {
+                archiveMonth(partition, month);
+                changed = true;
+            } catch (Exception e) {
+                if (isLockTimeout(e)) {
+                    log.warn("Events partition {} is still being read, archiving it on the next run", partition);
+                    continue;
+                }
+                log.error("Failed to archive events partition {}", partition, e);
+                break;
+            }
+        }
+
+        if (countArchivedMonths() || changed) {
+            dashboardSummaryService.reconcile();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (countArchivedMonths()) {
+            dashboardSummaryService.reconcile();
+        }
+    }
+
+    // Months archived before archived_event_counts existed are counted once from their segments; returns whether any was
+    private boolean countArchivedMonths() {
+        boolean counted = false;
+        for (Date month : jdbcTemplate.queryForList("SELECT month FROM archived_event_months WHERE counted_at IS NULL ORDER BY month", Date.class)) {
+            try {
+                counted |= Boolean.TRUE.equals(transactionTemplate.execute(status -> countArchivedMonth(YearMonth.from(month.toLocalDate()))));
+            } catch (Exception e) {
+                log.error("Failed to count archived events of {}", month, e);
+                break;
+            }
+        }
+        return counted;
+    }
+
+    private boolean countArchivedMonth(YearMonth month) {
+        Date day = Date.valueOf(month.atDay(1));
+        // Another node holds or already did it
+        if (jdbcTemplate.queryForList("SELECT month FROM archived_event_months WHERE month = ? AND counted_at IS NULL FOR UPDATE SKIP LOCKED",
+                Date.class, day).isEmpty()) {
+            return false;
+        }
+        Map<UUID, long[]> counts = new HashMap<>();
+        scanMonth(month, event -> {
+            counts.computeIfAbsent(event.repositoryId(), id -> new long[Event.EventType.values().length])[event.type().ordinal()]++;
+            return true;
+        });
+        List<Object[]> rows = new ArrayList<>();
+        counts.forEach((repositoryId, byType) -> {
+            for (Event.EventType type : Event.EventType.values()) {
+                if (byType[type.ordinal()] > 0) {
+                    rows.add(new Object[]{day, type.name(), byType[type.ordinal()], repositoryId});
+                }
+            }
+        });
+        // Segments of deleted repositories stay on disk until the month is dropped
+        jdbcTemplate.batchUpdate("INSERT INTO archived_event_counts (month, repository_id, type, event_count) "
+                + "SELECT ?, id, ?, ? FROM repositories WHERE id = ? ON CONFLICT DO NOTHING", rows);
+        jdbcTemplate.update("UPDATE archived_event_months SET counted_at = now() WHERE month = ?", day);
+        log.info("Counted archived events of {} for the dashboard summary", month);
+        return true;
+    }
+
+    private void archiveMonth(String partition, YearMonth month) {
+        long started = System.currentTimeMillis();
+        long[] total = {0};
+        List<SegmentWriter> written = new ArrayList<>();
+
+        try {
+            writeSegments(partition, month, written, total);
+        } catch (RuntimeException e) {
+            if (!written.isEmpty()) {
+                written.get(written.size() - 1).abort();
+            }
+            throw e;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> registerAndTruncate(partition, month, total[0]));
+        } catch (RuntimeException e) {
+            // Not registered, so no reader uses them; the next attempt writes them again
+            written.forEach(SegmentWriter::delete);
+            throw e;
+        }
+        log.info("Archived {} events from {} into {} segments in {} ms", total[0], partition, written.size(), System.currentTimeMillis() - started);
+    }
+
+    private void registerAndTruncate(String partition, YearMonth month, long total) {
+        // Taken up front so the counts below match what is truncated; gives up instead of queueing every later query
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+        jdbcTemplate.execute("LOCK TABLE " + partition + " IN ACCESS EXCLUSIVE MODE");
+        // alerts keep their event_id, like with an expired partition; the alert API reads it as no event
+        // Commits, file touches and PR state of these events were derived at ingest, nothing to backfill
+        jdbcTemplate.update("INSERT INTO archived_event_months (month, event_count, backfilled_at, counted_at) VALUES (?, ?, now(), now())",
+                Date.valueOf(month.atDay(1)), total);
+        // The dashboard summary adds these to the hot counts
+        jdbcTemplate.update("INSERT INTO archived_event_counts (month, repository_id, type, event_count) SELECT ?, repository_id, type, COUNT(*) FROM "
+                + partition + " GROUP BY repository_id, type", Date.valueOf(month.atDay(1)));
+        jdbcTemplate.execute("TRUNCATE " + partition);
+    }
+
+    // One segment per repository; rows arrive grouped by repository and newest first
+    private void writeSegments(String partition, YearMonth month, List<SegmentWriter> written, long[] total) {
+        // A cursor only streams inside a transaction
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, repository_id, contributor_id, type, delivery_id, payload::text AS payload, created_at FROM " + partition
+                            + " ORDER BY repository_id, created_at DESC, id DESC");
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            UUID repositoryId = rs.getObject("repository_id", UUID.class);
+            SegmentWriter writer = written.isEmpty() ? null : written.get(written.size() - 1);
+            if (writer == null || !writer.repositoryId.equals(repositoryId)) {
+                if (writer != null) {
+                    writer.commit();
+                }
+                writer = new SegmentWriter(repositoryId, month);
+                written.add(writer);
+            }
+            writer.append(new ArchivedEvent(
+                    rs.getObject("id", UUID.class),
+                    repositoryId,
+                    rs.getObject("contributor_id", UUID.class),
+                    Event.EventType.valueOf(rs.getString("type")),
+                    rs.getString("delivery_id"),
+                    eventPayloadCodec.decode(rs.getString("payload")),
+                    rs.getTimestamp("created_at").toLocalDateTime()));
+            total[0]++;
+        }));
+        if (!written.isEmpty()) {
+            written.get(written.size() - 1).commit();
+        }
+    }
+
+    @Override
+    public boolean hasArchive(UUID repositoryId) {
+        return !archivedMonths().isEmpty() && (repositoryId == null || Files.isDirectory(directory.resolve(repositoryId.toString())));
+    }
+
+    @Override
+    public long count(UUID repositoryId, Event.EventType type, LocalDateTime start, LocalDateTime end) {
+        long startMillis = start != null ? millis(start) : Long.MIN_VALUE;
+        long endMillis = end != null ? millis(end) : Long.MAX_VALUE;
+        long total = 0;
+        for (YearMonth month : months(start, end)) {
+            for (UUID segmentRepositoryId : repositoryId != null ? List.of(repositoryId) : repositoriesWithSegment(month)) {
+                total += countSegment(segmentRepositoryId, month, type, startMillis, endMillis);
+            }
+        }
+        return total;
+    }
+
+    private long countSegment(UUID repositoryId, YearMonth month, Event.EventType type, long startMillis, long endMillis) {
+        MappedByteBuffer index = index(repositoryId, month);
+        if (index == null) {
+            return 0;
+        }
+        long total = 0;
+        try (FileChannel segment = FileChannel.open(segmentPath(repositoryId, month), StandardOpenOption.READ)) {
+            int entries = index.capacity() / INDEX_ENTRY_BYTES;
+            for (int i = firstBlock(index, entries, endMillis); i < entries; i++) {
+                int position = i * INDEX_ENTRY_BYTES;
+                long newest = index.getLong(position);
+                long oldest = index.getLong(position + 8);
+                if (newest < startMillis) {
+                    break;
+                }
+                if (type == null && oldest >= startMillis && newest <= endMillis) {
+                    total += index.getInt(position + 28);
+                    continue;
+                }
+                for (ArchivedEvent event : readBlock(segment, index.getLong(position + 16), index.getInt(position + 24))) {
+                    if (matches(event, type, startMillis, endMillis)) {
+                        total++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived events of " + repositoryId + " for " + month, e);
+        }
+        return total;
+    }
+
+    @Override
+    public void scan(UUID repositoryId, Event.EventType type, LocalDateTime start, LocalDateTime end, long offset, Predicate<ArchivedEvent> visitor) {
+        long startMillis = start != null ? millis(start) : Long.MIN_VALUE;
+        long endMillis = end != null ? millis(end) : Long.MAX_VALUE;
+        long[] skip = {offset};
+        for (YearMonth month : months(start, end)) {
+            boolean more = repositoryId != null
+                    ? scanSegment(repositoryId, month, type, startMillis, endMillis, skip, visitor)
+                    : scanAllRepositories(month, type, startMillis, endMillis, skip, visitor);
+            if (!more) {
+                return;
+            }
+        }
+    }
+
+    // Returns false once the visitor asked to stop
+    private boolean scanSegment(UUID repositoryId, YearMonth month, Event.EventType type, long startMillis, long endMillis,
+                                long[] skip, Predicate<ArchivedEvent> visitor) {
+        MappedByteBuffer index = index(repositoryId, month);
+        if (index == null) {
+            return true;
+        }
+        try (FileChannel segment = FileChannel.open(segmentPath(repositoryId, month), StandardOpenOption.READ)) {
+            int entries = index.capacity() / INDEX_ENTRY_BYTES;
+            for (int i = firstBlock(index, entries, endMillis); i < entries; i++) {
+                int position = i * INDEX_ENTRY_BYTES;
+                long newest = index.getLong(position);
+                long oldest = index.getLong(position + 8);
+                if (newest < startMillis) {
+                    break;
+                }
+                int count = index.getInt(position + 28);
+                // Whole blocks inside the offset are skipped without inflating them
+                if (type == null && oldest >= startMillis && newest <= endMillis && skip[0] >= count) {
+                    skip[0] -= count;
+                    continue;
+                }
+                for (ArchivedEvent event : readBlock(segment, index.getLong(position + 16), index.getInt(position + 24))) {
+                    if (!matches(event, type, startMillis, endMillis)) {
+                        continue;
+                    }
+                    if (skip[0] > 0) {
+                        skip[0]--;
+                        continue;
+                    }
+                    if (!visitor.test(event)) {
+                        return false;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archived events of " + repositoryId + " for " + month, e);
+        }
+        return true;
+    }
+
+    @Override
+    public void scanMonth(YearMonth month, Predicate<ArchivedEvent> visitor) {
+        scanAllRepositories(month, null, Long.MIN_VALUE, Long.MAX_VALUE, new long[]{0}, visitor);
+    }
+
+    // Every repository's segment of the month merged newest first, one inflated block per repository at a time
+    private boolean scanAllRepositories(YearMonth month, Event.EventType type, long startMillis, long endMillis,
+                                        long[] skip, Predicate<ArchivedEvent> visitor) {
+        PriorityQueue<SegmentCursor> cursors = new PriorityQueue<>(Comparator.comparing((SegmentCursor cursor) -> cursor.current.createdAt())
+                .thenComparing(cursor -> cursor.current.id())
+                .reversed());
+        for (UUID repositoryId : repositoriesWithSegment(month)) {
+            SegmentCursor cursor = new SegmentCursor(repositoryId, month, startMillis, endMillis);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        while (!cursors.isEmpty()) {
+            SegmentCursor cursor = cursors.poll();
+            ArchivedEvent event = cursor.current;
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+            if (!matches(event, type, startMillis, endMillis)) {
+                continue;
+            }
+            if (skip[0] > 0) {
+                skip[0]--;
+                continue;
+            }
+            if (!visitor.test(event)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<UUID> repositoriesWithSegment(YearMonth month) {
+        try (Stream<Path> children = Files.list(directory)) {
+            return children.map(child -> parseRepositoryId(child.getFileName().toString()))
+                    .filter(repositoryId -> repositoryId != null && Files.exists(indexPath(repositoryId, month)))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list archive directory " + directory, e);
+        }
+    }
+
+    private UUID parseRepositoryId(String name) {
+        try {
+            return UUID.fromString(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Partition bounds are UTC and created_at is local time, a day of slack keeps edge months in; rows are filtered exactly later
+    private List<YearMonth> months(LocalDateTime start, LocalDateTime end) {
+        return archivedMonths().stream()
+                .filter(month -> start == null || start.isBefore(month.plusMonths(1).atDay(2).atStartOfDay()))
+                .filter(month -> end == null || !end.isBefore(month.atDay(1).minusDays(1).atStartOfDay()))
+                .toList();
+    }
+
+    // Blocks are ordered newest first, so oldest created_at decreases with the entry number
+    private int firstBlock(MappedByteBuffer index, int entries, long endMillis) {
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (index.getLong(mid * INDEX_ENTRY_BYTES + 8) <= endMillis) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private boolean matches(ArchivedEvent event, Event.EventType type, long startMillis, long endMillis) {
+        long createdAt = millis(event.createdAt());
+        return createdAt >= startMillis && createdAt <= endMillis && (type == null || type == event.type());
+    }
+
+    private List<ArchivedEvent> readBlock(FileChannel segment, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (segment.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Truncated archive segment");
+            }
+        }
+        List<ArchivedEvent> events = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(buffer.array())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                events.add(objectMapper.readValue(line, ArchivedEvent.class));
+            }
+        }
+        return events;
+    }
+
+    // Mapped under the cache lock, so a segment moved into place can't be followed by a stale mapping of the old file
+    private MappedByteBuffer index(UUID repositoryId, YearMonth month) {
+        Path path = indexPath(repositoryId, month);
+        synchronized (indexes) {
+            MappedByteBuffer index = indexes.get(path);
+            if (index != null || !Files.exists(path)) {
+                return index;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                indexes.put(path, index);
+                return index;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map archive index " + path, e);
+            }
+        }
+    }
+
+    private Path segmentPath(UUID repositoryId, YearMonth month) {
+        return directory.resolve(repositoryId.toString()).resolve(month.format(MONTH_FORMAT) + SEGMENT_SUFFIX);
+    }
+
+    private Path indexPath(UUID repositoryId, YearMonth month) {
+        return directory.resolve(repositoryId.toString()).resolve(month.format(MONTH_FORMAT) + INDEX_SUFFIX);
+    }
+
+    // events_pYYYYMM, the default partition is never archived
+    private YearMonth parseMonth(String partition) {
+        if (!partition.startsWith("events_p")) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring("events_p".length()), MONTH_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static boolean isLockTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && LOCK_NOT_AVAILABLE.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Only compared with each other, so the wall clock value is used as is
+    private static long millis(LocalDateTime value) {
+        return value.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    // Walks one repository's segment of a month newest first, opening the file only to read the next block
+    private class SegmentCursor {
+        private final UUID repositoryId;
+        private final YearMonth month;
+        private final long startMillis;
+        private final MappedByteBuffer index;
+        private final int entries;
+        private int nextBlock;
+        private List<ArchivedEvent> block = List.of();
+        private int position;
+        private ArchivedEvent current;
+
+        SegmentCursor(UUID repositoryId, YearMonth month, long startMillis, long endMillis) {
+            this.repositoryId = repositoryId;
+            this.month = month;
+            this.startMillis = startMillis;
+            index = index(repositoryId, month);
+            entries = index != null ? index.capacity() / INDEX_ENTRY_BYTES : 0;
+            nextBlock = index != null ? firstBlock(index, entries, endMillis) : 0;
+        }
+
+        // Moves to the next event, false when the segment has no more events in range
+        boolean advance() {
+            while (position >= block.size()) {
+                if (nextBlock >= entries || index.getLong(nextBlock * INDEX_ENTRY_BYTES) < startMillis) {
+                    current = null;
+                    return false;
+                }
+                int entry = nextBlock++ * INDEX_ENTRY_BYTES;
+                try (FileChannel segment = FileChannel.open(segmentPath(repositoryId, month), StandardOpenOption.READ)) {
+                    block = readBlock(segment, index.getLong(entry + 16), index.getInt(entry + 24));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read archived events of " + repositoryId + " for " + month, e);
+                }
+                position = 0;
+            }
+            current = block.get(position++);
+            return true;
+        }
+    }
+
+    /**
+     * Writes one repository's segment for a month. Nothing is visible until commit(), which moves both
+     * files into place; a failure leaves only temp files behind.
+     */
+    private class SegmentWriter {
+        private final UUID repositoryId;
+        private final YearMonth month;
+        private final Path tempSegment;
+        private final Path tempIndex;
+        private final FileChannel segmentChannel;
+        private final FileChannel indexChannel;
+        private final List<ArchivedEvent> block = new ArrayList<>();
+        private long offset = 0;
+
+        SegmentWriter(UUID repositoryId, YearMonth month) {
+            this.repositoryId = repositoryId;
+            this.month = month;
+            try {
+                Path parent = directory.resolve(repositoryId.toString());
+                Files.createDirectories(parent);
+                tempSegment = Files.createTempFile(parent, "segment", ".tmp");
+                tempIndex = Files.createTempFile(parent, "index", ".tmp");
+                segmentChannel = FileChannel.open(tempSegment, StandardOpenOption.WRITE);
+                indexChannel = FileChannel.open(tempIndex, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to create archive segment for " + repositoryId, e);
+            }
+        }
+
+        void append(ArchivedEvent event) {
+            block.add(event);
+            if (block.size() >= blockSize) {
+                flushBlock();
+            }
+        }
+
+        void commit() {
+            try {
+                flushBlock();
+                segmentChannel.force(true);
+                indexChannel.force(true);
+                segmentChannel.close();
+                indexChannel.close();
+                Files.move(tempSegment, segmentPath(repositoryId, month), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.move(tempIndex, indexPath(repositoryId, month), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                indexes.remove(indexPath(repositoryId, month));
+            } catch (IOException e) {
+                abort();
+                throw new UncheckedIOException("Failed to write archive segment for " + repositoryId, e);
+            }
+        }
+
+        private void flushBlock() {
+            if (block.isEmpty()) {
+                return;
+            }
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (OutputStream out = new GZIPOutputStream(bytes)) {
+                    for (ArchivedEvent event : block) {
+                        out.write(objectMapper.writeValueAsBytes(event));
+                        out.write('\n');
+                    }
+                }
+                byte[] data = bytes.toByteArray();
+                writeFully(segmentChannel, ByteBuffer.wrap(data));
+                writeFully(indexChannel, ByteBuffer.allocate(INDEX_ENTRY_BYTES)
+                        .putLong(millis(block.get(0).createdAt()))
+                        .putLong(millis(block.get(block.size() - 1).createdAt()))
+                        .putLong(offset)
+                        .putInt(data.length)
+                        .putInt(block.size())
+                        .flip());
+                offset += data.length;
+                block.clear();
+            } catch (IOException e) {
+                abort();
+                throw new UncheckedIOException("Failed to write archive block for " + repositoryId, e);
+            }
+        }
+
+        void delete() {
+            try {
+                Files.deleteIfExists(segmentPath(repositoryId, month));
+                Files.deleteIfExists(indexPath(repositoryId, month));
+                indexes.remove(indexPath(repositoryId, month));
+            } catch (IOException e) {
+                log.warn("Failed to delete unused archive segment of {} for {}", repositoryId, month, e);
+            }
+        }
+
+        private void abort() {
+            try {
+                segmentChannel.close();
+                indexChannel.close();
+                Files.deleteIfExists(tempSegment);
+                Files.deleteIfExists(tempIndex);
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.githubmonitor.api.service.EventPayloadCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Webhook deliveries repeat the repository, organization and sender objects, each with dozens of API URL templates.
+ * Before a payload is stored, app.events.payload.drop-paths are removed, the objects in
+ * app.events.payload.trimmed-objects keep only their app.events.payload.keep.<object> fields, and *_url templates
+ * are dropped except app.events.payload.keep-urls. Everything the application reads from a payload is kept.
+ * Optionally payloads above compress-min-bytes are deflated with a preset dictionary of typical GitHub payload
+ * content and stored as {"$z": "<dictionary version>:<base64>"}, which is still valid jsonb.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EventPayloadCodecImpl implements EventPayloadCodec {
+
+    private static final String ENVELOPE_FIELD = "$z";
+    private static final int DICTIONARY_VERSION = 1;
+    private static final Map<String, String[]> DEFAULT_KEEP = Map.of(
+            "repository", new String[]{"id", "name", "full_name", "html_url", "language", "default_branch"},
+            "sender", new String[]{"id", "login", "avatar_url", "type"});
+
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+
+    private final Map<String, Set<String>> keepFields = new HashMap<>();
+    private final Map<Integer, byte[]> dictionaries = new HashMap<>();
+
+    @Value("${app.events.payload.slim:true}")
+    private boolean slim;
+
+    @Value("${app.events.payload.drop-paths:organization,installation,enterprise,repository.owner,pull_request._links,pull_request.head.repo,pull_request.base.repo}")
+    private List<String> dropPaths;
+
+    @Value("${app.events.payload.trimmed-objects:repository,sender}")
+    private List<String> trimmedObjects;
+
+    @Value("${app.events.payload.keep-urls:html_url,avatar_url}")
+    private Set<String> keepUrls;
+
+    @Value("${app.events.payload.compress:false}")
+    private boolean compress;
+
+    @Value("${app.events.payload.compress-min-bytes:1024}")
+    private int compressMinBytes;
+
+    @PostConstruct
+    public void init() throws IOException {
+        trimmedObjects.forEach(name -> keepFields.put(name,
+                Set.of(environment.getProperty("app.events.payload.keep." + name, String[].class,
+                        DEFAULT_KEEP.getOrDefault(name, new String[0])))));
+        try (InputStream in = new ClassPathResource("payload/dictionary-v" + DICTIONARY_VERSION + ".json").getInputStream()) {
+            dictionaries.put(DICTIONARY_VERSION, in.readAllBytes());
+        }
+    }
+
+    @Override
+    public String encode(String payload) {
+        if (payload == null || isEnvelope(payload)) {
+            return payload;
+        }
+        String stored = payload;
+        if (slim) {
+            try {
+                JsonNode root = objectMapper.readTree(payload);
+                if (root instanceof ObjectNode object) {
+                    stored = objectMapper.writeValueAsString(slim(object));
+                }
+            } catch (IOException e) {
+                log.warn("Storing unparseable event payload as received", e);
+                return payload;
+            }
+        }
+
+        byte[] json = stored.getBytes(StandardCharsets.UTF_8);
+        if (!compress || json.length < compressMinBytes) {
+            return stored;
+        }
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put(ENVELOPE_FIELD, DICTIONARY_VERSION + ":" + Base64.getEncoder().encodeToString(deflate(json, dictionaries.get(DICTIONARY_VERSION))));
+        return envelope.toString();
+    }
+
+    @Override
+    public String decode(String stored) {
+        if (stored == null || !isEnvelope(stored)) {
+            return stored;
+        }
+        try {
+            String value = objectMapper.readTree(stored).path(ENVELOPE_FIELD).asText();
+            int separator = value.indexOf(':');
+            byte[] dictionary = dictionaries.get(Integer.parseInt(value.substring(0, separator)));
+            if (dictionary == null) {
+                throw new IllegalStateException("Unknown payload dictionary " + value.substring(0, separator));
+            }
+            return new String(inflate(Base64.getDecoder().decode(value.substring(separator + 1)), dictionary), StandardCharsets.UTF_8);
+        } catch (IOException | DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed event payload", e);
+        }
+    }
+
+    private ObjectNode slim(ObjectNode root) {
+        for (String path : dropPaths) {
+            String[] parts = path.trim().split("\\.");
+            JsonNode parent = root;
+            for (int i = 0; i < parts.length - 1 && parent != null; i++) {
+                parent = parent.get(parts[i]);
+            }
+            if (parent instanceof ObjectNode object) {
+                object.remove(parts[parts.length - 1]);
+            }
+        }
+        keepFields.forEach((name, fields) -> {
+            if (root.get(name) instanceof ObjectNode object && !fields.isEmpty()) {
+                object.retain(fields);
+            }
+        });
+        dropUrlTemplates(root);
+        return root;
+    }
+
+    private void dropUrlTemplates(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            List<String> remove = new ArrayList<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getKey().endsWith("_url") && !keepUrls.contains(field.getKey())) {
+                    remove.add(field.getKey());
+                } else {
+                    dropUrlTemplates(field.getValue());
+                }
+            }
+            object.remove(remove);
+        } else if (node.isArray()) {
+            node.forEach(this::dropUrlTemplates);
+        }
+    }
+
+    // jsonb prints {"$z": "..."}, plain payloads never start with that key
+    private boolean isEnvelope(String stored) {
+        int i = 0;
+        while (i < stored.length() && Character.isWhitespace(stored.charAt(i))) {
+            i++;
+        }
+        if (i >= stored.length() || stored.charAt(i) != '{') {
+            return false;
+        }
+        i++;
+        while (i < stored.length() && Character.isWhitespace(stored.charAt(i))) {
+            i++;
+        }
+        return stored.startsWith("\"" + ENVELOPE_FIELD + "\"", i);
+    }
+
+    private byte[] deflate(byte[] data, byte[] dictionary) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] inflate(byte[] data, byte[] dictionary) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(buffer);
+                if (read == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new DataFormatException("Truncated compressed payload");
+                    }
+                }
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -8,25 +8,47 @@ import com.githubmonitor.api.dto.EventDTO;
 import com.githubmonitor.api.entity.Contributor;
 import com.githubmonitor.api.entity.Event;
 import com.githubmonitor.api.entity.Repository;
+import com.githubmonitor.api.exception.GithubRateLimitException;
+import com.githubmonitor.api.exception.ResourceNotFoundException;
 import com.githubmonitor.api.repository.ContributorRepository;
 import com.githubmonitor.api.repository.EventRepository;
 import com.githubmonitor.api.repository.RepositoryRepository;
 import com.githubmonitor.api.service.AlertService;
+import com.githubmonitor.api.service.CommitService;
+import com.githubmonitor.api.service.FileIndexService;
+import com.githubmonitor.api.service.PullRequestService;
+import com.githubmonitor.api.service.DashboardSummaryService;
+import com.githubmonitor.api.service.DiffCacheService;
+import com.githubmonitor.api.service.EventArchiveService;
 import com.githubmonitor.api.service.EventService;
+import com.githubmonitor.api.service.GithubApiClient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -34,91 +56,309 @@ import java.util.UUID;
 public class EventServiceImpl implements EventService {
 
     private final EventRepository eventRepository;
+    private final EventArchiveService eventArchiveService;
+    private final CommitService commitService;
+    private final FileIndexService fileIndexService;
+    private final PullRequestService pullRequestService;
+    private final EntityManager entityManager;
     private final RepositoryRepository repositoryRepository;
     private final ContributorRepository contributorRepository;
     private final AlertService alertService;
     private final com.githubmonitor.api.service.SseService sseService;
     private final ObjectMapper objectMapper;
     private final com.githubmonitor.api.service.NotificationService notificationService;
+    private final GithubApiClient githubApiClient;
+    private final DiffCacheService diffCacheService;
+    private final DashboardSummaryService dashboardSummaryService;
 
-    @Value("${github.api.token}")
-    private String githubToken;
+    @Qualifier("diffPrefetchExecutor")
+    private final Executor diffPrefetchExecutor;
+
+    // GitHub pages commit and PR files 100 at a time and stops listing at 3000 files
+    private static final int DIFF_PAGE_SIZE = 100;
+    private static final int DIFF_MAX_PAGES = 30;
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    @Value("${app.diff-cache.max-cached-files:300}")
+    private int diffMaxCachedFiles;
+
+    @Value("${app.diff-cache.pull-request-revalidate-ms:60000}")
+    private long diffRevalidateAfterMs;
+
+    @Value("${app.diff-prefetch.enabled:false}")
+    private boolean diffPrefetchEnabled;
+
+    @Value("${app.diff-prefetch.min-remaining:1000}")
+    private long diffPrefetchMinRemaining;
+
+    @Override
+    public List<DiffFileDTO> getEventDiff(UUID eventId, boolean includePatches) {
+        List<DiffFileDTO> diffs = new ArrayList<>();
+        streamEventDiff(eventId, includePatches, file -> {
+            diffs.add(file);
+            return true;
+        });
+        return diffs;
+    }
+
+    @Override
+    public DiffFileDTO getEventDiffFile(UUID eventId, String filename) {
+        DiffFileDTO[] match = new DiffFileDTO[1];
+        streamEventDiff(eventId, true, file -> {
+            if (filename.equals(file.getFilename())) {
+                match[0] = file;
+                return false;
+            }
+            return true;
+        });
+        if (match[0] == null) {
+            throw new ResourceNotFoundException("File not found in diff: " + filename);
+        }
+        return match[0];
+    }
 
     @Override
-    public List<DiffFileDTO> getEventDiff(UUID eventId) {
-        Event event = eventRepository.findById(eventId)
+    public void streamEventDiff(UUID eventId, boolean includePatches, java.util.function.Predicate<DiffFileDTO> visitor) {
+        // Repository is fetched eagerly: streaming callers run outside the request's persistence context
+        Event event = eventRepository.findWithRepositoryById(eventId)
                 .orElseThrow(() -> new RuntimeException("Event not found"));
 
+        java.util.function.Predicate<DiffFileDTO> target = includePatches ? visitor : file -> visitor.test(withoutPatch(file));
         try {
-            JsonNode payload = objectMapper.readTree(event.getPayload());
-            String owner = event.getRepository().getOwner();
-            String repo = event.getRepository().getName();
-            
-            org.springframework.web.client.RestTemplate restTemplate = new org.springframework.web.client.RestTemplate();
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            if (githubToken != null && !githubToken.isEmpty()) {
-                headers.set("Authorization", "Bearer " + githubToken);
+            visitDiff(event.getType(), event.getPayload(), event.getRepository().getOwner(), event.getRepository().getName(), target);
+        } catch (GithubRateLimitException | java.io.UncheckedIOException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to fetch diff for event {}", eventId, e);
+            throw new RuntimeException("Failed to fetch diff", e);
+        }
+    }
+
+    /**
+     * Walks every changed file of a push (head commit) or pull request, following GitHub's pagination.
+     * Files reach the visitor page by page, so huge diffs never sit in memory as a whole; the visitor returns false to stop.
+     * Complete diffs of up to app.diff-cache.max-cached-files files are stored in the diff cache.
+     */
+    private void visitDiff(Event.EventType type, String rawPayload, String owner, String repo,
+                           java.util.function.Predicate<DiffFileDTO> visitor) throws JsonProcessingException {
+        JsonNode payload = objectMapper.readTree(rawPayload);
+
+        String key;
+        String path;
+        boolean revalidate;
+        if (type == Event.EventType.PUSH) {
+            // Get Head Commit
+            String headSha = payload.path("after").asText(null);
+            if (headSha == null) {
+                JsonNode headCommit = payload.path("head_commit");
+                if (headCommit != null && !headCommit.isMissingNode()) {
+                    headSha = headCommit.path("id").asText(null);
+                }
+            }
+            if (headSha == null) {
+                return;
             }
-            org.springframework.http.HttpEntity<String> entity = new org.springframework.http.HttpEntity<>(headers);
 
-            List<DiffFileDTO> diffs = new ArrayList<>();
+            // A commit never changes, the cached diff is served without asking GitHub
+            key = String.format("commit/%s/%s/%s", owner, repo, headSha);
+            path = String.format("/repos/%s/%s/commits/%s", owner, repo, headSha);
+            revalidate = false;
 
-            if (event.getType() == Event.EventType.PUSH) {
-                // Get Head Commit
-                String headSha = payload.path("after").asText(null);
-                if (headSha == null) {
-                    JsonNode headCommit = payload.path("head_commit");
-                    if (headCommit != null && !headCommit.isMissingNode()) {
-                        headSha = headCommit.path("id").asText(null);
-                    }
+        } else if (type == Event.EventType.PULL_REQUEST) {
+            JsonNode pullRequest = payload.path("pull_request");
+            int prNumber = pullRequest.path("number").asInt();
+            String headSha = pullRequest.path("head").path("sha").asText("");
+
+            // The file list of a PR head can still change when the base moves, so it is revalidated with its ETag
+            key = String.format("pull/%s/%s/%d/%s", owner, repo, prNumber, headSha);
+            path = String.format("/repos/%s/%s/pulls/%d/files", owner, repo, prNumber);
+            revalidate = true;
+
+        } else {
+            return;
+        }
+
+        DiffCacheService.CachedDiff cached = diffCacheService.get(key);
+        if (cached != null && (!revalidate || System.currentTimeMillis() - cached.fetchedAt() < diffRevalidateAfterMs)) {
+            visitAll(cached.files(), visitor);
+            return;
+        }
+
+        List<DiffFileDTO> collected = new ArrayList<>();
+        String etag = null;
+        for (int page = 1; page <= DIFF_MAX_PAGES; page++) {
+            String pagePath = path + "?per_page=" + DIFF_PAGE_SIZE + "&page=" + page;
+            GithubApiClient.Response response = githubApiClient.getConditional(pagePath,
+                    page == 1 && revalidate && cached != null ? cached.etag() : null);
+
+            if (response.notModified() && cached != null) {
+                diffCacheService.touch(key, System.currentTimeMillis());
+                visitAll(cached.files(), visitor);
+                return;
+            }
+            if (page == 1) {
+                etag = response.etag();
+            }
+
+            JsonNode body = response.body();
+            JsonNode files = body == null ? null : (body.isArray() ? body : body.path("files"));
+            if (files == null || !files.isArray()) {
+                break;
+            }
+
+            for (JsonNode file : files) {
+                DiffFileDTO diff = toDiffFile(file);
+                if (!visitor.test(diff)) {
+                    // Partial walk, nothing to cache
+                    return;
                 }
-                
-                if (headSha != null) {
-                    String url = String.format("https://api.github.com/repos/%s/%s/commits/%s", owner, repo, headSha);
-                    org.springframework.http.ResponseEntity<JsonNode> response = restTemplate.exchange(url, org.springframework.http.HttpMethod.GET, entity, JsonNode.class);
-                    
-                    if (response.getBody() != null && response.getBody().has("files")) {
-                        for (JsonNode file : response.getBody().get("files")) {
-                            diffs.add(DiffFileDTO.builder()
-                                    .filename(file.path("filename").asText())
-                                    .status(file.path("status").asText())
-                                    .additions(file.path("additions").asInt())
-                                    .deletions(file.path("deletions").asInt())
-                                    .patch(file.path("patch").asText(null))
-                                    .build());
-                        }
+                if (collected != null) {
+                    collected.add(diff);
+                    if (collected.size() > diffMaxCachedFiles) {
+                        collected = null;
                     }
                 }
+            }
 
-            } else if (event.getType() == Event.EventType.PULL_REQUEST) {
-                int prNumber = payload.path("pull_request").path("number").asInt();
-                String url = String.format("https://api.github.com/repos/%s/%s/pulls/%d/files", owner, repo, prNumber);
-                
-                org.springframework.http.ResponseEntity<JsonNode> response = restTemplate.exchange(url, org.springframework.http.HttpMethod.GET, entity, JsonNode.class);
-                 if (response.getBody() != null && response.getBody().isArray()) {
-                        for (JsonNode file : response.getBody()) {
-                            diffs.add(DiffFileDTO.builder()
-                                    .filename(file.path("filename").asText())
-                                    .status(file.path("status").asText())
-                                    .additions(file.path("additions").asInt())
-                                    .deletions(file.path("deletions").asInt())
-                                    .patch(file.path("patch").asText(null))
-                                    .build());
-                        }
-                    }
+            if (files.size() < DIFF_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        if (collected != null) {
+            diffCacheService.put(key, new DiffCacheService.CachedDiff(collected, etag, System.currentTimeMillis()));
+        }
+    }
+
+    private void visitAll(List<DiffFileDTO> files, java.util.function.Predicate<DiffFileDTO> visitor) {
+        for (DiffFileDTO file : files) {
+            if (!visitor.test(file)) {
+                return;
             }
+        }
+    }
 
-            return diffs;
+    private DiffFileDTO withoutPatch(DiffFileDTO file) {
+        return DiffFileDTO.builder()
+                .filename(file.getFilename())
+                .status(file.getStatus())
+                .additions(file.getAdditions())
+                .deletions(file.getDeletions())
+                .build();
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to fetch diff for event {}", eventId, e);
-            throw new RuntimeException("Failed to fetch diff", e);
+    /**
+     * Warms the diff cache for a freshly ingested push or pull request once its transaction has committed.
+     * Runs on the low priority prefetch executor and is skipped when the GitHub budget is below the configured reserve.
+     */
+    private void scheduleDiffPrefetch(Event event) {
+        if (!diffPrefetchEnabled
+                || (event.getType() != Event.EventType.PUSH && event.getType() != Event.EventType.PULL_REQUEST)
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
         }
+
+        // Captured now: the entities are detached by the time the prefetch runs
+        Event.EventType type = event.getType();
+        String payload = event.getPayload();
+        String owner = event.getRepository().getOwner();
+        String repo = event.getRepository().getName();
+        UUID eventId = event.getId();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                diffPrefetchExecutor.execute(() -> {
+                    if (githubApiClient.remainingRequests() < diffPrefetchMinRemaining) {
+                        log.debug("Skipping diff prefetch for event {}: GitHub budget below reserve", eventId);
+                        return;
+                    }
+                    try {
+                        visitDiff(type, payload, owner, repo, file -> true);
+                    } catch (Exception e) {
+                        log.debug("Diff prefetch failed for event {}", eventId, e);
+                    }
+                });
+            }
+        });
     }
 
+    private DiffFileDTO toDiffFile(JsonNode file) {
+        return DiffFileDTO.builder()
+                .filename(file.path("filename").asText())
+                .status(file.path("status").asText())
+                .additions(file.path("additions").asInt())
+                .deletions(file.path("deletions").asInt())
+                .patch(file.path("patch").asText(null))
+                .build();
+    }
+
+    // Hot rows are read first: their partition locks keep the archiver from truncating a month until this
+    // transaction has also read the archived months, so no event is missed or returned twice
     @Override
+    @Transactional(readOnly = true)
     public Page<EventDTO> findAll(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end, Pageable pageable) {
-        Specification<Event> spec = (root, query, cb) -> {
+        Page<EventDTO> page = eventRepository.findAll(filter(repositoryId, type, start, end), pageable)
+                .map(this::toDTO);
+        if (!readsArchive(repositoryId) || !isNewestFirst(pageable)) {
+            return page;
+        }
+
+        // Archived events are all older than the hot table, so they simply continue the listing after its last row
+        Event.EventType eventType = parseTypeFilter(type);
+        long archived = eventArchiveService.count(repositoryId, eventType, start, end);
+        if (archived == 0) {
+            return page;
+        }
+        List<EventDTO> content = new ArrayList<>(page.getContent());
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+        if (content.size() < limit) {
+            long archiveOffset = pageable.isPaged() ? Math.max(0, pageable.getOffset() - page.getTotalElements()) : 0;
+            eventArchiveService.scan(repositoryId, eventType, start, end, archiveOffset, event -> {
+                content.add(toDTO(event));
+                return content.size() < limit;
+            });
+        }
+        return new PageImpl<>(content, pageable, page.getTotalElements() + archived);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long count(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end) {
+        long count = eventRepository.count(filter(repositoryId, type, start, end));
+        if (readsArchive(repositoryId)) {
+            count += eventArchiveService.count(repositoryId, parseTypeFilter(type), start, end);
+        }
+        return count;
+    }
+
+    // A null repository reads every repository's archive
+    private boolean readsArchive(UUID repositoryId) {
+        return eventArchiveService.hasArchive(repositoryId);
+    }
+
+    private boolean isNewestFirst(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        Sort.Order order = sort.getOrderFor("createdAt");
+        return order != null && order.isDescending() && sort.stream().count() == 1;
+    }
+
+    private Event.EventType parseTypeFilter(String type) {
+        if (type == null || type.isEmpty()) {
+            return null;
+        }
+        try {
+            return Event.EventType.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Specification<Event> filter(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end) {
+        return (root, query, cb) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             if (repositoryId != null) {
@@ -145,9 +385,49 @@ public class EventServiceImpl implements EventService {
 
             return cb.and(predicates.toArray(new Predicate[0]));
         };
+    }
 
-        return eventRepository.findAll(spec, pageable)
-                .map(this::toDTO);
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(UUID repositoryId, String type, LocalDateTime start, LocalDateTime end, Consumer<EventDTO> consumer) {
+        // Forward-only cursor: rows are fetched from Postgres in chunks instead of materialized
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Event> query = cb.createQuery(Event.class);
+        Root<Event> root = query.from(Event.class);
+        query.where(filter(repositoryId, type, start, end).toPredicate(root, query, cb))
+                .orderBy(cb.desc(root.get("createdAt")));
+
+        try (Stream<Event> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            int[] count = {0};
+            rows.forEach(row -> {
+                consumer.accept(toDTO(row));
+                // Keep the persistence context from growing with the cursor
+                if (++count[0] % 500 == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+
+        if (readsArchive(repositoryId)) {
+            eventArchiveService.scan(repositoryId, parseTypeFilter(type), start, end, 0, event -> {
+                consumer.accept(toDTO(event));
+                return true;
+            });
+        }
+    }
+
+    private EventDTO toDTO(EventArchiveService.ArchivedEvent archived) {
+        return toDTO(Event.builder()
+                .id(archived.id())
+                .repository(Repository.builder().id(archived.repositoryId()).build())
+                .type(archived.type())
+                .deliveryId(archived.deliveryId())
+                .payload(archived.payload())
+                .createdAt(archived.createdAt())
+                .build());
     }
 
     private EventDTO toDTO(Event event) {
@@ -371,7 +651,17 @@ public class EventServiceImpl implements EventService {
             eventRepository.save(event);
             log.info("Event saved successfully: {}", event.getId());
 
-            // 4. Trigger Windows Notification
+            if (type == Event.EventType.PUSH) {
+                commitService.recordPush(event, rootNode);
+                fileIndexService.recordPush(event, rootNode);
+            } else if (type == Event.EventType.PULL_REQUEST) {
+                pullRequestService.recordEvent(event, rootNode);
+            }
+
+            scheduleDiffPrefetch(event);
+            dashboardSummaryService.recordEvent(repository.getId(), type);
+
+            // 4. Queue event notification
             triggerEventNotification(event, rootNode);
 
             // 5. Check Alerts
@@ -470,7 +760,7 @@ public class EventServiceImpl implements EventService {
                 }
             }
 
-            notificationService.sendNotification(title, message.toString());
+            notificationService.sendEventNotification(event, author, title, message.toString());
         } catch (Exception e) {
             log.error("Failed to send notification", e);
         }
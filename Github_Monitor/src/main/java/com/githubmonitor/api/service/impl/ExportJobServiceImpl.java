@@ -0,0 +1,340 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.dto.ExportJobDTO;
+import com.githubmonitor.api.dto.ExportJobDTO.Status;
+import com.githubmonitor.api.dto.ExportRequestDTO;
+import com.githubmonitor.api.exception.ResourceNotFoundException;
+import com.githubmonitor.api.exception.ServiceBusyException;
+import com.githubmonitor.api.security.UserPrincipal;
+import com.githubmonitor.api.service.DashboardService;
+import com.githubmonitor.api.service.ExportJobService;
+import com.githubmonitor.api.service.SseService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs dashboard exports in the background and keeps the workbooks on local disk.
+ * Artifacts are named after a hash of the normalized filters, so identical requests share one job and one file
+ * until the artifact expires, as long as the requested range ended before that job read the data: an open-ended
+ * range or one reaching past it always gets a fresh export. Progress frames go only to the users who requested the job.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportJobServiceImpl implements ExportJobService {
+
+    private static final String PROGRESS_EVENT = "export-progress";
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    private final DashboardService dashboardService;
+    private final SseService sseService;
+
+    @Qualifier("exportExecutor")
+    private final Executor exportExecutor;
+
+    private final Map<UUID, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Job> jobsByHash = new ConcurrentHashMap<>();
+    private Path directory;
+
+    @Value("${app.export.dir:./data/exports}")
+    private String directoryPath;
+
+    @Value("${app.export.retention-hours:24}")
+    private long retentionHours;
+
+    @PostConstruct
+    public void init() {
+        directory = Paths.get(directoryPath);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Export directory " + directory + " is not writable", e);
+        }
+    }
+
+    @Override
+    public ExportJobDTO submit(ExportRequestDTO request) {
+        ExportRequestDTO normalized = normalize(request);
+        String hash = hash(normalized);
+        UUID userId = getCurrentUserId();
+
+        boolean[] created = {false};
+        Job job = jobsByHash.compute(hash, (key, existing) -> {
+            if (existing != null && existing.status != Status.FAILED && !isExpired(existing)
+                    && covers(normalized, existing.snapshotAt)) {
+                return existing;
+            }
+            Job fresh = new Job(UUID.randomUUID(), hash, normalized);
+            Path artifact = artifactPath(hash);
+            if (isFresh(artifact) && covers(normalized, toLocal(lastModified(artifact)))) {
+                // Left by a previous run of the application
+                fresh.snapshotAt = toLocal(lastModified(artifact));
+                fresh.complete(artifact, fresh.snapshotAt);
+            } else {
+                created[0] = true;
+            }
+            jobs.put(fresh.id, fresh);
+            return fresh;
+        });
+        if (userId != null) {
+            job.requesters.add(userId);
+        }
+
+        if (created[0]) {
+            try {
+                exportExecutor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                jobsByHash.remove(hash, job);
+                jobs.remove(job.id);
+                throw new ServiceBusyException("Too many exports in progress, try again later", 30);
+            }
+        }
+        return job.toDTO(retentionHours);
+    }
+
+    @Override
+    public ExportJobDTO getJob(UUID id) {
+        return findJob(id).toDTO(retentionHours);
+    }
+
+    @Override
+    public Path getArtifact(UUID id) {
+        Job job = findJob(id);
+        if (job.status != Status.COMPLETED || !Files.exists(job.artifact)) {
+            throw new ResourceNotFoundException("Export " + id + " has no downloadable artifact");
+        }
+        return job.artifact;
+    }
+
+    private Job findJob(UUID id) {
+        Job job = jobs.get(id);
+        if (job == null || isExpired(job)) {
+            throw new ResourceNotFoundException("Export job not found with id " + id);
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        job.status = Status.RUNNING;
+        Path temp = null;
+        try {
+            job.totalRows = dashboardService.countExportRows(job.request);
+            publishProgress(job);
+
+            temp = Files.createTempFile(directory, "export", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                dashboardService.writeExcelReport(job.request, out, rows -> {
+                    job.rowsWritten = rows;
+                    if (System.currentTimeMillis() - job.lastPublishedAt >= PROGRESS_INTERVAL_MS) {
+                        publishProgress(job);
+                    }
+                });
+            }
+
+            Path artifact = artifactPath(job.hash);
+            Files.move(temp, artifact, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // The file's time records when its data was read, for reuse after a restart
+            Files.setLastModifiedTime(artifact, FileTime.from(job.snapshotAt.atZone(ZoneId.systemDefault()).toInstant()));
+            job.complete(artifact, LocalDateTime.now());
+            log.info("Export {} finished: {} rows, {} bytes", job.id, job.rowsWritten, job.sizeBytes);
+        } catch (Exception e) {
+            log.error("Export {} failed", job.id, e);
+            job.status = Status.FAILED;
+            job.error = e.getMessage();
+            job.completedAt = LocalDateTime.now();
+            deleteQuietly(temp);
+        }
+        publishProgress(job);
+    }
+
+    private void publishProgress(Job job) {
+        job.lastPublishedAt = System.currentTimeMillis();
+        ExportJobDTO progress = job.toDTO(retentionHours);
+        job.requesters.forEach(userId -> sseService.sendToUser(userId, PROGRESS_EVENT, progress));
+    }
+
+    @Scheduled(fixedDelayString = "${app.export.cleanup-interval-ms:900000}")
+    public void purgeExpired() {
+        jobs.values().removeIf(job -> {
+            if (!isExpired(job)) {
+                return false;
+            }
+            jobsByHash.remove(job.hash, job);
+            return true;
+        });
+
+        // Files are checked on their own so artifacts and temp files from previous runs expire as well
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> lastModified(file).isBefore(cutoff)).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Failed to purge expired exports in {}", directory, e);
+        }
+    }
+
+    private boolean isExpired(Job job) {
+        return job.completedAt != null
+                && job.completedAt.plusHours(retentionHours).isBefore(LocalDateTime.now());
+    }
+
+    // Data written after the export read it is missing from it, so only a range that ended by then can share it
+    private boolean covers(ExportRequestDTO request, LocalDateTime snapshotAt) {
+        return request.getEnd() != null && !request.getEnd().isAfter(snapshotAt);
+    }
+
+    private LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private boolean isFresh(Path artifact) {
+        return Files.exists(artifact)
+                && lastModified(artifact).isAfter(Instant.now().minus(Duration.ofHours(retentionHours)));
+    }
+
+    private Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete export file {}", file, e);
+        }
+    }
+
+    private UUID getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+
+    private Path artifactPath(String hash) {
+        return directory.resolve(hash + ".xlsx");
+    }
+
+    private ExportRequestDTO normalize(ExportRequestDTO request) {
+        ExportRequestDTO normalized = request != null ? request : new ExportRequestDTO();
+        return ExportRequestDTO.builder()
+                .repositoryId(normalized.getRepositoryId())
+                .start(normalized.getStart())
+                .end(normalized.getEnd())
+                .sheets(normalized.getSheets() == null || normalized.getSheets().isEmpty()
+                        ? EnumSet.allOf(ExportRequestDTO.Sheet.class)
+                        : EnumSet.copyOf(normalized.getSheets()))
+                .build();
+    }
+
+    private String hash(ExportRequestDTO request) {
+        String key = request.getRepositoryId() + "|" + request.getStart() + "|" + request.getEnd() + "|"
+                + request.getSheets().stream().map(Enum::name).collect(Collectors.toCollection(TreeSet::new));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class Job {
+        private final UUID id;
+        private final String hash;
+        private final ExportRequestDTO request;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final Set<UUID> requesters = ConcurrentHashMap.newKeySet();
+
+        // Rows are read after this, so the export holds everything created up to it
+        private volatile LocalDateTime snapshotAt = createdAt;
+
+        private volatile Status status = Status.QUEUED;
+        private volatile long rowsWritten;
+        private volatile long totalRows;
+        private volatile Path artifact;
+        private volatile Long sizeBytes;
+        private volatile String error;
+        private volatile LocalDateTime completedAt;
+        private volatile long lastPublishedAt;
+
+        Job(UUID id, String hash, ExportRequestDTO request) {
+            this.id = id;
+            this.hash = hash;
+            this.request = request;
+        }
+
+        void complete(Path file, LocalDateTime at) {
+            artifact = file;
+            try {
+                sizeBytes = Files.size(file);
+            } catch (IOException e) {
+                sizeBytes = null;
+            }
+            completedAt = at;
+            status = Status.COMPLETED;
+        }
+
+        ExportJobDTO toDTO(long retentionHours) {
+            Integer percent = null;
+            if (status == Status.COMPLETED) {
+                percent = 100;
+            } else if (totalRows > 0) {
+                percent = (int) Math.min(99, rowsWritten * 100 / totalRows);
+            }
+            return ExportJobDTO.builder()
+                    .id(id)
+                    .status(status)
+                    .request(request)
+                    .rowsWritten(rowsWritten)
+                    .totalRows(totalRows)
+                    .progressPercent(percent)
+                    .sizeBytes(sizeBytes)
+                    .error(error)
+                    .createdAt(createdAt)
+                    .completedAt(completedAt)
+                    .expiresAt(completedAt != null ? completedAt.plusHours(retentionHours) : null)
+                    .build();
+        }
+    }
+}
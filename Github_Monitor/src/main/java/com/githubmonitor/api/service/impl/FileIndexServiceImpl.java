@@ -0,0 +1,237 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.githubmonitor.api.dto.FileContributorDTO;
+import com.githubmonitor.api.dto.FileTouchDTO;
+import com.githubmonitor.api.entity.Event;
+import com.githubmonitor.api.service.FileIndexService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Which pushes touched which files. Paths are interned in file_paths and event_files only stores the path id,
+ * so rows stay narrow and "who changed src/main/..." is an index range scan instead of a payload scan.
+ * Recently used path ids are kept in memory to skip the dictionary round trip on hot paths.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileIndexServiceImpl implements FileIndexService {
+
+    private static final String INSERT_SQL = "INSERT INTO event_files (path_id, repository_id, event_id, created_at, contributor_id, change_type) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private Map<String, Long> pathIds;
+
+    @Value("${app.file-index.max-paths-per-push:1000}")
+    private int maxPathsPerPush;
+
+    @Value("${app.file-index.cached-paths:10000}")
+    private int cachedPaths;
+
+    @Value("${app.file-index.max-results:500}")
+    private int maxResults;
+
+    @PostConstruct
+    public void init() {
+        pathIds = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > cachedPaths;
+            }
+        });
+    }
+
+    @Override
+    public void recordPush(Event event, JsonNode payload) {
+        JsonNode commits = payload.path("commits");
+        if (!commits.isArray() || commits.isEmpty()) {
+            return;
+        }
+
+        // Net change per path over the push, commits are listed oldest first
+        Map<String, Character> changes = new TreeMap<>();
+        for (JsonNode commit : commits) {
+            collect(changes, commit.path("added"), 'A');
+            collect(changes, commit.path("modified"), 'M');
+            collect(changes, commit.path("removed"), 'R');
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (changes.size() > maxPathsPerPush) {
+            log.info("Push {} touched {} files, indexing the first {}", event.getId(), changes.size(), maxPathsPerPush);
+        }
+
+        List<String> paths = changes.keySet().stream().limit(maxPathsPerPush).toList();
+        Map<String, Long> ids = resolvePathIds(paths);
+
+        Timestamp createdAt = Timestamp.valueOf(event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now());
+        UUID contributorId = event.getContributor() != null ? event.getContributor().getId() : null;
+        List<Object[]> rows = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            rows.add(new Object[]{ids.get(path), event.getRepository().getId(), event.getId(), createdAt, contributorId,
+                    String.valueOf(changes.get(path))});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private void collect(Map<String, Character> changes, JsonNode files, char change) {
+        if (!files.isArray()) {
+            return;
+        }
+        for (JsonNode file : files) {
+            String path = file.asText("");
+            if (path.isEmpty()) {
+                continue;
+            }
+            // A file added and then modified within the same push is still new
+            changes.merge(path, change, (previous, next) -> previous == 'A' && next == 'M' ? 'A' : next);
+        }
+    }
+
+    // paths are sorted, so concurrent pushes lock new dictionary entries in the same order
+    private Map<String, Long> resolvePathIds(List<String> paths) {
+        Map<String, Long> ids = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String path : paths) {
+            Long id = pathIds.get(path);
+            if (id != null) {
+                ids.put(path, id);
+            } else {
+                missing.add(path);
+            }
+        }
+        if (missing.isEmpty()) {
+            return ids;
+        }
+
+        String[] array = missing.toArray(new String[0]);
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO file_paths (path) SELECT unnest(?) ON CONFLICT (path) DO NOTHING");
+            statement.setArray(1, connection.createArrayOf("text", array));
+            return statement;
+        });
+        Map<String, Long> resolved = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT id, path FROM file_paths WHERE path = ANY(?)");
+            statement.setArray(1, connection.createArrayOf("text", array));
+            return statement;
+        }, (RowCallbackHandler) rs -> resolved.put(rs.getString("path"), rs.getLong("id")));
+        ids.putAll(resolved);
+
+        // New dictionary rows only exist once the webhook transaction commits
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pathIds.putAll(resolved);
+                }
+            });
+        } else {
+            pathIds.putAll(resolved);
+        }
+        return ids;
+    }
+
+    @Override
+    public List<FileTouchDTO> findTouches(UUID repositoryId, String path, boolean prefix, LocalDateTime start, LocalDateTime end, int limit) {
+        List<Object> params = new ArrayList<>();
+        String where = where(repositoryId, path, prefix, start, end, params);
+        params.add(Math.max(1, Math.min(limit, maxResults)));
+
+        return jdbcTemplate.query("SELECT ef.event_id, ef.repository_id, fp.path, ef.change_type, ef.created_at, c.github_login "
+                        + "FROM event_files ef "
+                        + "JOIN file_paths fp ON fp.id = ef.path_id "
+                        + "LEFT JOIN contributors c ON c.id = ef.contributor_id "
+                        + where
+                        + " ORDER BY ef.created_at DESC LIMIT ?",
+                (rs, rowNum) -> FileTouchDTO.builder()
+                        .eventId(rs.getObject("event_id", UUID.class))
+                        .repositoryId(rs.getObject("repository_id", UUID.class))
+                        .type(Event.EventType.PUSH)
+                        .path(rs.getString("path"))
+                        .change(changeName(rs.getString("change_type")))
+                        .contributorLogin(rs.getString("github_login"))
+                        .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+                        .build(),
+                params.toArray());
+    }
+
+    @Override
+    public List<FileContributorDTO> findContributors(UUID repositoryId, String path, boolean prefix, LocalDateTime start, LocalDateTime end, int limit) {
+        List<Object> params = new ArrayList<>();
+        String where = where(repositoryId, path, prefix, start, end, params);
+        params.add(Math.max(1, Math.min(limit, maxResults)));
+
+        return jdbcTemplate.query("SELECT c.github_login, c.avatar_url, COUNT(DISTINCT ef.path_id) AS file_count, "
+                        + "COUNT(DISTINCT ef.event_id) AS event_count, MAX(ef.created_at) AS last_touched_at "
+                        + "FROM event_files ef "
+                        + "JOIN contributors c ON c.id = ef.contributor_id "
+                        + where
+                        + " GROUP BY c.github_login, c.avatar_url ORDER BY event_count DESC, last_touched_at DESC LIMIT ?",
+                (rs, rowNum) -> FileContributorDTO.builder()
+                        .githubLogin(rs.getString("github_login"))
+                        .avatarUrl(rs.getString("avatar_url"))
+                        .fileCount(rs.getLong("file_count"))
+                        .eventCount(rs.getLong("event_count"))
+                        .lastTouchedAt(rs.getTimestamp("last_touched_at").toLocalDateTime())
+                        .build(),
+                params.toArray());
+    }
+
+    private String where(UUID repositoryId, String path, boolean prefix, LocalDateTime start, LocalDateTime end, List<Object> params) {
+        StringBuilder where = new StringBuilder();
+        if (prefix) {
+            // Escaped so '_' and '%' in file names match literally; served by the text_pattern_ops index
+            where.append("WHERE ef.path_id IN (SELECT id FROM file_paths WHERE path LIKE ? ESCAPE '\\')");
+            params.add(path.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+        } else {
+            where.append("WHERE ef.path_id = (SELECT id FROM file_paths WHERE path = ?)");
+            params.add(path);
+        }
+        if (repositoryId != null) {
+            where.append(" AND ef.repository_id = ?");
+            params.add(repositoryId);
+        }
+        if (start != null) {
+            where.append(" AND ef.created_at >= ?");
+            params.add(Timestamp.valueOf(start));
+        }
+        if (end != null) {
+            where.append(" AND ef.created_at <= ?");
+            params.add(Timestamp.valueOf(end));
+        }
+        return where.toString();
+    }
+
+    private String changeName(String changeType) {
+        return switch (changeType) {
+            case "A" -> "ADDED";
+            case "R" -> "REMOVED";
+            default -> "MODIFIED";
+        };
+    }
+}
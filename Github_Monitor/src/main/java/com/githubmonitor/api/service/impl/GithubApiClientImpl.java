@@ -0,0 +1,224 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.githubmonitor.api.exception.GithubRateLimitException;
+import com.githubmonitor.api.service.GithubApiClient;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single shared client for api.github.com.
+ * The JDK HttpClient keeps a pool of HTTP/2 connections, concurrent calls for the same path share one request,
+ * and calls are gated by a token bucket refilled from the X-RateLimit-* headers of every response.
+ */
+@Service
+@Slf4j
+public class GithubApiClientImpl implements GithubApiClient {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+    private final Object bucketLock = new Object();
+
+    // Unknown until the first response, GitHub's authenticated default
+    private long remaining = 5000;
+    private long resetEpochSeconds = 0;
+    // Calls sent but not answered yet; their cost shows up in the next X-RateLimit-Remaining
+    private long pending = 0;
+
+    private RestClient restClient;
+
+    @Value("${github.api.token}")
+    private String githubToken;
+
+    @Value("${github.api.base-url:https://api.github.com}")
+    private String baseUrl;
+
+    @Value("${github.api.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${github.api.read-timeout-ms:15000}")
+    private long readTimeoutMs;
+
+    @Value("${github.api.rate-limit.reserve:50}")
+    private long rateLimitReserve;
+
+    @Value("${github.api.rate-limit.max-wait-ms:2000}")
+    private long rateLimitMaxWaitMs;
+
+    @PostConstruct
+    public void init() {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestClient.Builder builder = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .defaultHeader(HttpHeaders.ACCEPT, "application/vnd.github+json")
+                .defaultHeader("X-GitHub-Api-Version", "2022-11-28");
+        if (githubToken != null && !githubToken.isEmpty()) {
+            builder.defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + githubToken);
+        }
+        restClient = builder.build();
+    }
+
+    @Override
+    public JsonNode get(String path) {
+        return getConditional(path, null).body();
+    }
+
+    @Override
+    public Response getConditional(String path, String etag) {
+        String key = etag == null ? path : path + "|" + etag;
+        CompletableFuture<Response> call = new CompletableFuture<>();
+        CompletableFuture<Response> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            call.complete(execute(path, etag));
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, call);
+        }
+        return await(call);
+    }
+
+    private Response await(CompletableFuture<Response> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Response execute(String path, String etag) {
+        acquire();
+        try {
+            ResponseEntity<JsonNode> response = restClient.get()
+                    .uri(path)
+                    .headers(headers -> {
+                        if (etag != null) {
+                            headers.setIfNoneMatch(etag);
+                        }
+                    })
+                    .retrieve()
+                    .toEntity(JsonNode.class);
+            updateRateLimit(response.getHeaders());
+            boolean notModified = response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED);
+            String responseEtag = response.getHeaders().getETag();
+            return new Response(notModified ? null : response.getBody(), responseEtag != null ? responseEtag : etag, notModified);
+        } catch (RestClientResponseException e) {
+            updateRateLimit(e.getResponseHeaders());
+            if (e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                    || (e.getStatusCode().isSameCodeAs(HttpStatus.FORBIDDEN) && currentRemaining() == 0)) {
+                throw new GithubRateLimitException("GitHub API rate limit exceeded", secondsUntilReset());
+            }
+            throw e;
+        } finally {
+            release();
+        }
+    }
+
+    // Waits, re-checking after every wakeup, until the budget has room or the window resets
+    private void acquire() {
+        synchronized (bucketLock) {
+            long deadlineMs = System.currentTimeMillis() + rateLimitMaxWaitMs;
+            while (true) {
+                long nowMs = System.currentTimeMillis();
+                long resetMs = resetEpochSeconds * 1000;
+                if (remaining - pending > rateLimitReserve || nowMs >= resetMs) {
+                    break;
+                }
+                if (resetMs > deadlineMs) {
+                    throw new GithubRateLimitException("GitHub API rate limit budget exhausted", secondsUntilReset());
+                }
+                try {
+                    bucketLock.wait(resetMs - nowMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new GithubRateLimitException("Interrupted while waiting for GitHub rate limit reset", secondsUntilReset());
+                }
+            }
+            pending++;
+        }
+    }
+
+    private void release() {
+        synchronized (bucketLock) {
+            pending--;
+            bucketLock.notifyAll();
+        }
+    }
+
+    private void updateRateLimit(HttpHeaders headers) {
+        if (headers == null) {
+            return;
+        }
+        String remainingHeader = headers.getFirst("X-RateLimit-Remaining");
+        String resetHeader = headers.getFirst("X-RateLimit-Reset");
+        if (remainingHeader == null || resetHeader == null) {
+            return;
+        }
+        try {
+            long headerRemaining = Long.parseLong(remainingHeader);
+            long headerReset = Long.parseLong(resetHeader);
+            synchronized (bucketLock) {
+                // GitHub's count is authoritative (a 304 to a conditional request costs nothing); within one window
+                // a response that finished late must not raise it back
+                if (headerReset > resetEpochSeconds) {
+                    remaining = headerRemaining;
+                    resetEpochSeconds = headerReset;
+                } else if (headerReset == resetEpochSeconds) {
+                    remaining = Math.min(remaining, headerRemaining);
+                }
+                bucketLock.notifyAll();
+            }
+            if (remaining <= rateLimitReserve) {
+                log.warn("GitHub API rate limit low: {} requests left until {}", remaining, resetEpochSeconds);
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed GitHub rate limit headers", e);
+        }
+    }
+
+    @Override
+    public long remainingRequests() {
+        return currentRemaining();
+    }
+
+    private long currentRemaining() {
+        synchronized (bucketLock) {
+            return remaining;
+        }
+    }
+
+    private long secondsUntilReset() {
+        synchronized (bucketLock) {
+            return Math.max(1, resetEpochSeconds - System.currentTimeMillis() / 1000);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.dto.HotspotReportDTO;
+import com.githubmonitor.api.exception.BadRequestException;
+import com.githubmonitor.api.exception.ResourceNotFoundException;
+import com.githubmonitor.api.repository.RepositoryRepository;
+import com.githubmonitor.api.service.HotspotService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Most changed files and directories per repository, kept in memory as one Space-Saving top-K summary per day.
+ * A file counts once per push that touches it; a directory counts every file change below it.
+ * Windows merge the daily summaries, so counts are upper bounds with a known maximum overestimate.
+ * Every node tails event_files by ingest_xid up to the oldest running transaction, so each push is counted once
+ * on every node whichever node ingested it. One node at a time writes the changed days to hotspot_snapshots along
+ * with its watermark; a restarting node reloads them and tails event_files from that watermark.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HotspotServiceImpl implements HotspotService {
+
+    private static final Pattern PERIOD = Pattern.compile("(\\d{1,3})d");
+
+    private static final String UPSERT_SQL = "INSERT INTO hotspot_snapshots (repository_id, day, kind, counters, snapshot_at) "
+            + "SELECT ?, ?, ?, CAST(? AS jsonb), now() WHERE EXISTS (SELECT 1 FROM repositories WHERE id = ?) "
+            + "ON CONFLICT (repository_id, day, kind) DO UPDATE SET counters = EXCLUDED.counters, snapshot_at = EXCLUDED.snapshot_at";
+
+    // Every transaction with a lower id has committed or rolled back
+    private static final String HORIZON_SQL = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RepositoryRepository repositoryRepository;
+    private final ObjectMapper objectMapper;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<UUID, NavigableMap<LocalDate, DayCounters>> repositories = new ConcurrentHashMap<>();
+
+    // Guards the watermark and adding or removing days; the counters of a day are guarded by the day itself
+    private final Object feedLock = new Object();
+
+    // event_files rows with a lower ingest_xid are counted; null until the counters are loaded
+    private String watermark;
+
+    @Value("${app.hotspots.capacity:200}")
+    private int capacity;
+
+    @Value("${app.hotspots.max-window-days:30}")
+    private int maxWindowDays;
+
+    @Value("${app.hotspots.snapshot-interval-ms:300000}")
+    private long snapshotIntervalMs;
+
+    @Override
+    public HotspotReportDTO getHotspots(UUID repositoryId, String period, int limit) {
+        if (!repositoryRepository.existsById(repositoryId)) {
+            throw new ResourceNotFoundException("Repository not found");
+        }
+        Matcher matcher = PERIOD.matcher(period);
+        int days = matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+        if (days < 1 || days > maxWindowDays) {
+            throw new BadRequestException("period must be between 1d and " + maxWindowDays + "d");
+        }
+
+        List<SpaceSavingSketch> files = new ArrayList<>();
+        List<SpaceSavingSketch> directories = new ArrayList<>();
+        NavigableMap<LocalDate, DayCounters> byDay = repositories.get(repositoryId);
+        if (byDay != null) {
+            for (DayCounters counters : byDay.tailMap(LocalDate.now().minusDays(days - 1), true).values()) {
+                synchronized (counters) {
+                    files.add(counters.files.copy());
+                    directories.add(counters.directories.copy());
+                }
+            }
+        }
+        int top = Math.max(1, Math.min(limit, capacity));
+
+        return HotspotReportDTO.builder()
+                .repositoryId(repositoryId)
+                .period(period)
+                .files(SpaceSavingSketch.merge(files, top))
+                .directories(SpaceSavingSketch.merge(directories, top))
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        poll();
+    }
+
+    @Scheduled(fixedDelayString = "${app.hotspots.poll-interval-ms:5000}", initialDelayString = "${app.hotspots.poll-interval-ms:5000}")
+    public void poll() {
+        synchronized (feedLock) {
+            if (watermark == null && !load()) {
+                return;
+            }
+            String horizon = jdbcTemplate.queryForObject(HORIZON_SQL, String.class);
+            if (Long.parseLong(horizon) <= Long.parseLong(watermark)) {
+                return;
+            }
+            // Read in full before counting, so a failed read is simply retried from the same watermark
+            List<Touch> touches = new ArrayList<>();
+            replay("ef.ingest_xid >= CAST(? AS xid8) AND ef.ingest_xid < CAST(? AS xid8)", touches::add, watermark, horizon);
+            touches.forEach(this::offer);
+            watermark = horizon;
+        }
+    }
+
+    // Caller holds feedLock
+    private boolean load() {
+        LocalDate oldest = oldestDay();
+        TransactionTemplate consistentRead = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        consistentRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        consistentRead.setReadOnly(true);
+        long[] loaded = {0};
+        try {
+            watermark = consistentRead.execute(status -> {
+                String snapshotWatermark = jdbcTemplate.queryForObject("SELECT xid_watermark::text FROM hotspot_state WHERE id = 1", String.class);
+                if (snapshotWatermark != null) {
+                    jdbcTemplate.query("SELECT repository_id, day, kind, counters FROM hotspot_snapshots WHERE day >= ?",
+                            (RowCallbackHandler) rs -> {
+                                DayCounters counters = dayCounters(rs.getObject("repository_id", UUID.class), rs.getDate("day").toLocalDate());
+                                synchronized (counters) {
+                                    restore("F".equals(rs.getString("kind")) ? counters.files : counters.directories, rs.getString("counters"));
+                                }
+                                loaded[0]++;
+                            }, Date.valueOf(oldest));
+                    return snapshotWatermark;
+                }
+                // No snapshot yet: count everything this transaction sees, rows from before V15 have no ingest_xid
+                String horizon = jdbcTemplate.queryForObject(HORIZON_SQL, String.class);
+                replay("(ef.ingest_xid IS NULL OR ef.ingest_xid < CAST(? AS xid8))", touch -> {
+                    offer(touch);
+                    loaded[0]++;
+                }, horizon);
+                return horizon;
+            });
+        } catch (RuntimeException e) {
+            repositories.clear();
+            log.warn("Failed to load hotspot counters, retrying on the next poll", e);
+            return false;
+        }
+        log.info("Hotspot counters loaded for {} repositories ({} rows) up to transaction {}", repositories.size(), loaded[0], watermark);
+        return true;
+    }
+
+    private void replay(String condition, Consumer<Touch> consumer, Object... params) {
+        List<Object> args = new ArrayList<>(List.of(ZoneId.systemDefault().getId(), Timestamp.valueOf(oldestDay().atStartOfDay())));
+        args.addAll(List.of(params));
+        jdbcTemplate.query("SELECT ef.repository_id, (ef.created_at AT TIME ZONE ?)::date AS day, fp.path, COUNT(*) AS touches "
+                        + "FROM event_files ef JOIN file_paths fp ON fp.id = ef.path_id "
+                        + "WHERE ef.created_at >= ? AND " + condition + " GROUP BY 1, 2, 3",
+                (RowCallbackHandler) rs -> consumer.accept(new Touch(rs.getObject("repository_id", UUID.class),
+                        rs.getDate("day").toLocalDate(), rs.getString("path"), rs.getLong("touches"))),
+                args.toArray());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.hotspots.snapshot-interval-ms:300000}", initialDelayString = "${app.hotspots.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        List<DayCounters> written = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeSnapshot(written));
+        } catch (RuntimeException e) {
+            written.forEach(counters -> {
+                synchronized (counters) {
+                    counters.dirty = true;
+                }
+            });
+            log.warn("Failed to snapshot hotspot counters, retrying on the next run", e);
+        }
+    }
+
+    private void writeSnapshot(List<DayCounters> written) {
+        // The row lock serializes writers; another node takes over once the current writer stops snapshotting
+        Map<String, Object> state = jdbcTemplate.queryForMap("SELECT node_id, snapshot_at IS NULL OR snapshot_at < now() - make_interval(secs => ?) AS stale "
+                + "FROM hotspot_state WHERE id = 1 FOR UPDATE", 3 * snapshotIntervalMs / 1000.0);
+        boolean writer = nodeId.equals(state.get("node_id"));
+        if (!writer && !Boolean.TRUE.equals(state.get("stale"))) {
+            return;
+        }
+
+        LocalDate oldest = oldestDay();
+        String snapshotWatermark;
+        List<UUID> repositoryIds = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        synchronized (feedLock) {
+            if (watermark == null) {
+                return;
+            }
+            snapshotWatermark = watermark;
+            repositories.values().forEach(byDay -> byDay.headMap(oldest, false).clear());
+            repositories.values().removeIf(Map::isEmpty);
+            repositories.forEach((repositoryId, byDay) -> byDay.forEach((day, counters) -> {
+                synchronized (counters) {
+                    // A new writer rewrites every day, the previous writer's rows match another watermark
+                    if (writer && !counters.dirty) {
+                        return;
+                    }
+                    rows.add(new Object[]{repositoryId, Date.valueOf(day), "F", toJson(counters.files), repositoryId});
+                    rows.add(new Object[]{repositoryId, Date.valueOf(day), "D", toJson(counters.directories), repositoryId});
+                    repositoryIds.add(repositoryId);
+                    written.add(counters);
+                    counters.dirty = false;
+                }
+            }));
+        }
+
+        if (!writer) {
+            jdbcTemplate.update("DELETE FROM hotspot_snapshots");
+        }
+        if (!rows.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            synchronized (feedLock) {
+                for (int i = 0; i < updated.length; i += 2) {
+                    // Nothing written means the repository was deleted
+                    if (updated[i] == 0) {
+                        repositories.remove(repositoryIds.get(i / 2));
+                    }
+                }
+            }
+        }
+        jdbcTemplate.update("DELETE FROM hotspot_snapshots WHERE day < ?", Date.valueOf(oldest));
+        jdbcTemplate.update("UPDATE hotspot_state SET node_id = ?, xid_watermark = CAST(? AS xid8), snapshot_at = now() WHERE id = 1",
+                nodeId, snapshotWatermark);
+        log.debug("Snapshotted {} hotspot days up to transaction {}", written.size(), snapshotWatermark);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    private void offer(Touch touch) {
+        DayCounters counters = dayCounters(touch.repositoryId(), touch.day());
+        synchronized (counters) {
+            counters.files.offer(touch.path(), touch.touches());
+            String path = touch.path();
+            for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+                counters.directories.offer(path.substring(0, slash + 1), touch.touches());
+            }
+            counters.dirty = true;
+        }
+    }
+
+    private DayCounters dayCounters(UUID repositoryId, LocalDate day) {
+        return repositories.computeIfAbsent(repositoryId, id -> new ConcurrentSkipListMap<>())
+                .computeIfAbsent(day, d -> new DayCounters(capacity));
+    }
+
+    private LocalDate oldestDay() {
+        return LocalDate.now().minusDays(maxWindowDays - 1);
+    }
+
+    private String toJson(SpaceSavingSketch sketch) {
+        List<Object[]> counters = new ArrayList<>();
+        for (SpaceSavingSketch.Counter counter : sketch.counters()) {
+            counters.add(new Object[]{counter.item, counter.count, counter.error});
+        }
+        try {
+            return objectMapper.writeValueAsString(counters);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize hotspot counters", e);
+        }
+    }
+
+    private void restore(SpaceSavingSketch sketch, String json) {
+        try {
+            for (JsonNode counter : objectMapper.readTree(json)) {
+                sketch.restore(counter.get(0).asText(), counter.get(1).asLong(), counter.get(2).asLong());
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable hotspot snapshot", e);
+        }
+    }
+
+    // Number of pushes that touched path on day
+    private record Touch(UUID repositoryId, LocalDate day, String path, long touches) {
+    }
+
+    private static class DayCounters {
+        private final SpaceSavingSketch files;
+        private final SpaceSavingSketch directories;
+        private boolean dirty;
+
+        DayCounters(int capacity) {
+            files = new SpaceSavingSketch(capacity);
+            directories = new SpaceSavingSketch(capacity);
+        }
+    }
+}
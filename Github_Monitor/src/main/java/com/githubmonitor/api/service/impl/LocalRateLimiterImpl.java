@@ -0,0 +1,53 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.service.RateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-process token buckets. The map locks per bin and each bucket is updated with a CAS loop,
+ * so concurrent requests for different clients never contend and requests for the same client never block.
+ */
+@Service
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimiterImpl implements RateLimiter {
+
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final ConcurrentHashMap<String, AtomicReference<State>> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public Decision tryAcquire(String key, long capacity, double refillPerSecond) {
+        AtomicReference<State> bucket = buckets.computeIfAbsent(key, k -> new AtomicReference<>(new State(capacity, System.nanoTime())));
+        while (true) {
+            State current = bucket.get();
+            long now = System.nanoTime();
+            double tokens = Math.min(capacity, current.tokens() + (now - current.refilledAt()) / 1e9 * refillPerSecond);
+            boolean allowed = tokens >= 1;
+            State next = new State(allowed ? tokens - 1 : tokens, now);
+            if (bucket.compareAndSet(current, next)) {
+                return Decision.of(allowed, next.tokens(), capacity, refillPerSecond);
+            }
+        }
+    }
+
+    @Override
+    public long activeBuckets() {
+        return buckets.size();
+    }
+
+    // A bucket untouched for 10 minutes is full again for every configured rate, dropping it changes nothing
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> now - bucket.get().refilledAt() > IDLE_NANOS);
+    }
+
+    private record State(double tokens, long refilledAt) {
+    }
+}
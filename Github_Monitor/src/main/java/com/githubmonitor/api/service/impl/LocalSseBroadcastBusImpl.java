@@ -0,0 +1,30 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.service.SseBroadcastBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+// Single node deployment: frames are numbered here and handed straight back to SseServiceImpl.
+// Numbering starts at the boot time in milliseconds, so ids keep growing across restarts.
+@Service
+@ConditionalOnProperty(name = "app.sse.bus", havingValue = "local", matchIfMissing = true)
+public class LocalSseBroadcastBusImpl implements SseBroadcastBus {
+
+    private final Object lock = new Object();
+    private long sequence = System.currentTimeMillis();
+    private volatile FrameListener listener = (id, userId, type, data) -> { };
+
+    @Override
+    public void publish(UUID userId, String type, String data) {
+        synchronized (lock) {
+            listener.accept(++sequence, userId, type, data);
+        }
+    }
+
+    @Override
+    public void onFrame(FrameListener listener) {
+        this.listener = listener;
+    }
+}
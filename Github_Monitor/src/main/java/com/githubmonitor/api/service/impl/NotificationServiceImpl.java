@@ -0,0 +1,327 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.entity.Alert;
+import com.githubmonitor.api.entity.Event;
+import com.githubmonitor.api.entity.Notification;
+import com.githubmonitor.api.repository.NotificationRepository;
+import com.githubmonitor.api.service.NotificationChannel;
+import com.githubmonitor.api.service.NotificationService;
+import com.githubmonitor.api.service.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Notifications go through the notifications table as an outbox: the caller only inserts one PENDING row per
+ * channel, and delivery happens on notificationExecutor after the caller's transaction commits.
+ * Rows are held until the end of their app.notifications.digest-window-ms bucket (aligned to the epoch, so every row
+ * of a bucket shares one next_attempt_at and becomes due in the same poll) and then sent as one digest per channel
+ * and repository, within a per-channel budget. CRITICAL alerts skip both the window and the budget.
+ * Failed deliveries are retried with exponential backoff by a poller, which also picks up rows left behind
+ * by a full queue or a restart. SENT and FAILED rows are deleted once older than app.notifications.retention-days.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationServiceImpl implements NotificationService {
+
+    private static final Set<Notification.Status> CLAIMABLE = EnumSet.of(Notification.Status.PENDING, Notification.Status.SENDING);
+    private static final String BYPASS_PRIORITY = Alert.Severity.CRITICAL.name();
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final String PURGE_SQL = "DELETE FROM notifications WHERE id IN (SELECT id FROM notifications "
+            + "WHERE status IN ('SENT', 'FAILED') AND created_at < ? LIMIT ?)";
+
+    private final NotificationRepository notificationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<NotificationChannel> channels;
+    private final RateLimiter rateLimiter;
+    private final Environment environment;
+
+    @Qualifier("notificationExecutor")
+    private final Executor notificationExecutor;
+
+    private final Map<String, NotificationChannel> channelsByName = new HashMap<>();
+    private final Map<String, Long> budgetsPerMinute = new HashMap<>();
+
+    @Value("${app.notifications.event-channels:TRAY}")
+    private List<String> eventChannels;
+
+    @Value("${app.notifications.alert-channels:TRAY,WEBHOOK,EMAIL}")
+    private List<String> alertChannels;
+
+    @Value("${app.notifications.digest-window-ms:30000}")
+    private long digestWindowMs;
+
+    @Value("${app.notifications.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.retry-base-ms:5000}")
+    private long retryBaseMs;
+
+    @Value("${app.notifications.retry-max-ms:3600000}")
+    private long retryMaxMs;
+
+    @Value("${app.notifications.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${app.notifications.poll-batch-size:100}")
+    private int pollBatchSize;
+
+    @Value("${app.notifications.retention-days:30}")
+    private int retentionDays;
+
+    @Value("${app.notifications.retention-batch-size:5000}")
+    private int retentionBatchSize;
+
+    @PostConstruct
+    public void init() {
+        channels.forEach(channel -> {
+            channelsByName.put(channel.name(), channel);
+            // app.notifications.<channel>.budget-per-minute, 0 means unlimited
+            budgetsPerMinute.put(channel.name(), environment.getProperty(
+                    "app.notifications." + channel.name().toLowerCase(Locale.ROOT) + ".budget-per-minute", Long.class, 30L));
+        });
+    }
+
+    @Override
+    public void sendEventNotification(Event event, String author, String title, String message) {
+        enqueue(eventChannels, Notification.builder()
+                .eventId(event.getId())
+                .repositoryId(event.getRepository().getId())
+                .repositoryName(event.getRepository().getName())
+                .category(event.getType().name())
+                .author(author), title, message);
+    }
+
+    @Override
+    public void sendAlertNotification(Alert alert, Event event, String author, String title, String message) {
+        enqueue(alertChannels, Notification.builder()
+                .alertId(alert.getId())
+                .eventId(event.getId())
+                .repositoryId(alert.getRepositoryId())
+                .repositoryName(event.getRepository().getName())
+                .category("ALERT " + alert.getRuleType())
+                .author(author)
+                .priority(alert.getSeverity().name()), title, message);
+    }
+
+    private void enqueue(List<String> channelNames, Notification.NotificationBuilder template, String title, String message) {
+        Notification prototype = template
+                .title(title.length() > MAX_TITLE_LENGTH ? title.substring(0, MAX_TITLE_LENGTH) : title)
+                .message(message)
+                .build();
+        boolean bypass = BYPASS_PRIORITY.equals(prototype.getPriority());
+        // Held until the window bucket closes, the poller picks the whole bucket up once it has
+        LocalDateTime dueAt = bypass || digestWindowMs <= 0 ? LocalDateTime.now() : windowEnd(System.currentTimeMillis());
+
+        List<UUID> immediate = new ArrayList<>();
+        for (String channelName : channelNames) {
+            NotificationChannel channel = channelsByName.get(channelName.trim());
+            if (channel == null || !channel.isEnabled()) {
+                continue;
+            }
+            Notification notification = notificationRepository.save(Notification.builder()
+                    .alertId(prototype.getAlertId())
+                    .eventId(prototype.getEventId())
+                    .repositoryId(prototype.getRepositoryId())
+                    .repositoryName(prototype.getRepositoryName())
+                    .channel(channel.name())
+                    .category(prototype.getCategory())
+                    .author(prototype.getAuthor())
+                    .priority(prototype.getPriority())
+                    .title(prototype.getTitle())
+                    .message(prototype.getMessage())
+                    .nextAttemptAt(dueAt)
+                    .build());
+            if (bypass || digestWindowMs <= 0) {
+                immediate.add(notification.getId());
+            }
+        }
+
+        if (immediate.isEmpty()) {
+            return;
+        }
+        Runnable dispatch = () -> immediate.forEach(id -> notificationExecutor.execute(() -> deliver(id)));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch.run();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.poll-interval-ms:10000}")
+    public void dispatchDue() {
+        List<UUID> due = notificationRepository.findDueIds(CLAIMABLE, LocalDateTime.now(), PageRequest.of(0, pollBatchSize));
+        due.forEach(id -> notificationExecutor.execute(() -> deliver(id)));
+    }
+
+    // In batches, so the delete never holds many row locks or one long transaction against the poller
+    @Scheduled(cron = "${app.notifications.retention-cron:0 30 3 * * *}")
+    public void purgeExpired() {
+        if (retentionDays <= 0) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        long total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, cutoff, retentionBatchSize);
+            total += deleted;
+        } while (deleted >= retentionBatchSize);
+        if (total > 0) {
+            log.info("Purged {} notifications older than {} days", total, retentionDays);
+        }
+    }
+
+    private void deliver(UUID id) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+        UUID claimId = UUID.randomUUID();
+        if (notificationRepository.claim(id, CLAIMABLE, Notification.Status.SENDING, claimId, now, leaseUntil) == 0) {
+            // Already delivered, part of another digest, or claimed by another worker
+            return;
+        }
+        Notification lead = notificationRepository.findById(id).orElse(null);
+        if (lead == null) {
+            return;
+        }
+
+        boolean bypass = BYPASS_PRIORITY.equals(lead.getPriority());
+        if (!bypass && lead.getRepositoryId() != null) {
+            notificationRepository.claimDigestGroup(lead.getChannel(), lead.getRepositoryId(), CLAIMABLE,
+                    Notification.Status.SENDING, claimId, BYPASS_PRIORITY, now, leaseUntil);
+        }
+        List<Notification> batch = notificationRepository.findByClaimIdOrderByCreatedAt(claimId);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        NotificationChannel channel = channelsByName.get(lead.getChannel());
+        if (!bypass && channel != null) {
+            long budget = budgetsPerMinute.getOrDefault(channel.name(), 0L);
+            if (budget > 0) {
+                RateLimiter.Decision decision = rateLimiter.tryAcquire("notification:" + channel.name(), budget, budget / 60.0);
+                if (!decision.allowed()) {
+                    // Not a failed attempt: the rows wait and join the next digest for this repository
+                    LocalDateTime retryAt = now.plusSeconds(Math.max(1, decision.retryAfterSeconds()));
+                    batch.forEach(notification -> {
+                        notification.setStatus(Notification.Status.PENDING);
+                        notification.setClaimId(null);
+                        notification.setNextAttemptAt(retryAt);
+                    });
+                    notificationRepository.saveAll(batch);
+                    return;
+                }
+            }
+        }
+
+        Notification outgoing = batch.size() == 1 ? batch.get(0) : digest(batch);
+        String error = null;
+        try {
+            if (channel == null || !channel.isEnabled()) {
+                throw new IllegalStateException("Notification channel " + lead.getChannel() + " is not available");
+            }
+            channel.send(outgoing);
+        } catch (Exception e) {
+            error = e.toString();
+            log.warn("Notification {} via {} failed: {}", id, lead.getChannel(), e.getMessage());
+        }
+
+        LocalDateTime finishedAt = LocalDateTime.now();
+        for (Notification notification : batch) {
+            notification.setAttempts(notification.getAttempts() + 1);
+            notification.setClaimId(null);
+            if (error == null) {
+                notification.setStatus(Notification.Status.SENT);
+                notification.setSentAt(finishedAt);
+                notification.setLastError(null);
+                notification.setDigestId(batch.size() > 1 ? lead.getId() : null);
+            } else if (notification.getAttempts() >= maxAttempts) {
+                notification.setStatus(Notification.Status.FAILED);
+                notification.setLastError(error);
+                log.error("Notification {} via {} failed after {} attempts: {}", notification.getId(), notification.getChannel(), notification.getAttempts(), error);
+            } else {
+                notification.setStatus(Notification.Status.PENDING);
+                notification.setLastError(error);
+                notification.setNextAttemptAt(finishedAt.plusNanos(backoffMs(notification.getAttempts()) * 1_000_000));
+            }
+        }
+        notificationRepository.saveAll(batch);
+    }
+
+    // e.g. "37 PUSH by 4 authors" per category, in the order the notifications arrived
+    private Notification digest(List<Notification> batch) {
+        Map<String, List<Notification>> byCategory = new LinkedHashMap<>();
+        batch.forEach(notification -> byCategory
+                .computeIfAbsent(Objects.requireNonNullElse(notification.getCategory(), "OTHER"), key -> new ArrayList<>())
+                .add(notification));
+
+        StringBuilder message = new StringBuilder();
+        byCategory.forEach((category, notifications) -> {
+            Set<String> authors = new HashSet<>();
+            notifications.forEach(notification -> {
+                if (notification.getAuthor() != null) {
+                    authors.add(notification.getAuthor());
+                }
+            });
+            message.append(notifications.size()).append(" ").append(category);
+            if (!authors.isEmpty()) {
+                message.append(" by ").append(authors.size()).append(authors.size() == 1 ? " author" : " authors");
+            }
+            message.append("\n");
+        });
+
+        Notification first = batch.get(0);
+        return Notification.builder()
+                .id(first.getId())
+                .channel(first.getChannel())
+                .repositoryId(first.getRepositoryId())
+                .repositoryName(first.getRepositoryName())
+                .title("Resumo: " + batch.size() + " notificações em " + first.getRepositoryName())
+                .message(message.toString().trim())
+                .build();
+    }
+
+    private LocalDateTime windowEnd(long nowMs) {
+        long end = (Math.floorDiv(nowMs, digestWindowMs) + 1) * digestWindowMs;
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(end), ZoneId.systemDefault());
+    }
+
+    // Exponential backoff with +/-20% jitter so a recovering endpoint is not hit by every retry at once
+    private long backoffMs(int attempts) {
+        long delay = Math.min(retryMaxMs, retryBaseMs << Math.min(attempts - 1, 20));
+        return (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+}
@@ -0,0 +1,143 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.service.DashboardSummaryService;
+import com.githubmonitor.api.service.PartitionMaintenanceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Keeps the monthly partitions of events and audit_logs (see V7) in shape: partitions for the next
+ * app.partitions.months-ahead months are created ahead of time so inserts never land in the default partition,
+ * and partitions entirely older than the table's retention are detached or dropped, which is a catalog change
+ * instead of a bulk DELETE. Tables partitioned alongside events (see V13, V14) follow the events retention month for month,
+ * and alerts keep their event_id, read as no event once it is gone. Runs at startup and daily; an advisory lock
+ * keeps several nodes from racing.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionMaintenanceServiceImpl implements PartitionMaintenanceService {
+
+    private static final long LOCK_KEY = 0x7061727469L;
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    // Same monthly ranges as events, created and expired together with it
+    private static final List<String> EVENT_TABLES = List.of("events", "event_deliveries", "event_files");
+
+    public enum RetentionMode {
+        DETACH, DROP
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DashboardSummaryService dashboardSummaryService;
+
+    @Value("${app.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.partitions.retention-mode:DETACH}")
+    private RetentionMode retentionMode;
+
+    // 0 keeps every partition
+    @Value("${app.partitions.events.retention-months:0}")
+    private int eventsRetentionMonths;
+
+    @Value("${app.partitions.audit-logs.retention-months:0}")
+    private int auditLogsRetentionMonths;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Override
+    @Scheduled(cron = "${app.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        try {
+            Boolean expiredEvents = transactionTemplate.execute(status -> {
+                if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY))) {
+                    log.debug("Partition maintenance already running on another node");
+                    return false;
+                }
+                YearMonth current = YearMonth.now(ZoneOffset.UTC);
+                EVENT_TABLES.forEach(table -> createAhead(table, current));
+                createAhead("audit_logs", current);
+                boolean expired = false;
+                for (String table : EVENT_TABLES) {
+                    expired |= expire(table, current, eventsRetentionMonths);
+                }
+                expire("audit_logs", current, auditLogsRetentionMonths);
+                return expired;
+            });
+            if (Boolean.TRUE.equals(expiredEvents)) {
+                // Totals still include the rows that just left the events table
+                dashboardSummaryService.reconcile();
+            }
+        } catch (Exception e) {
+            log.error("Partition maintenance failed", e);
+        }
+    }
+
+    private void createAhead(String table, YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate monthStart = current.plusMonths(i).atDay(1);
+            jdbcTemplate.queryForObject("SELECT create_monthly_partition(?, ?)", String.class, table, Date.valueOf(monthStart));
+        }
+    }
+
+    private boolean expire(String table, YearMonth current, int retentionMonths) {
+        if (retentionMonths <= 0) {
+            return false;
+        }
+        // Only partitions whose whole range is older than the cutoff are expired
+        YearMonth cutoff = current.minusMonths(retentionMonths);
+        boolean expired = false;
+        for (String partition : listPartitions(table)) {
+            YearMonth month = parseMonth(table, partition);
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            if (retentionMode == RetentionMode.DROP) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            } else {
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+            }
+            log.info("{} partition {} ({} months retention)", retentionMode == RetentionMode.DROP ? "Dropped" : "Detached", partition, retentionMonths);
+            expired = true;
+        }
+        return expired;
+    }
+
+    private List<String> listPartitions(String table) {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = ?::regclass ORDER BY c.relname",
+                String.class, table);
+    }
+
+    // <table>_pYYYYMM, anything else (e.g. the default partition) is left alone
+    private YearMonth parseMonth(String table, String partition) {
+        String prefix = table + "_p";
+        if (!partition.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(prefix.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
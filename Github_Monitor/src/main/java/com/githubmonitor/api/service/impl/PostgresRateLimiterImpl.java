@@ -0,0 +1,78 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.service.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets shared by every API node, kept in the rate_limit_buckets table.
+ * Refill and take happen in one upsert, so concurrent nodes cannot both spend the last token.
+ * A rejected client is remembered locally until its next token is due, so a flood is turned away without database calls.
+ */
+@Service
+@ConditionalOnProperty(name = "app.rate-limit.backend", havingValue = "postgres")
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresRateLimiterImpl implements RateLimiter {
+
+    private static final String REFILLED = "LEAST(?, b.tokens + EXTRACT(EPOCH FROM now() - b.updated_at) * ?)";
+
+    private static final String ACQUIRE_SQL = """
+            INSERT INTO rate_limit_buckets AS b (bucket_key, tokens, allowed, updated_at)
+            VALUES (?, ? - 1, true, now())
+            ON CONFLICT (bucket_key) DO UPDATE SET
+                allowed = %1$s >= 1,
+                tokens = %1$s - CASE WHEN %1$s >= 1 THEN 1 ELSE 0 END,
+                updated_at = now()
+            RETURNING tokens, allowed
+            """.formatted(REFILLED);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<String, Long> rejectedUntil = new ConcurrentHashMap<>();
+
+    @Override
+    public Decision tryAcquire(String key, long capacity, double refillPerSecond) {
+        Long until = rejectedUntil.get(key);
+        long now = System.currentTimeMillis();
+        if (until != null && until > now) {
+            return new Decision(false, 0, Math.max(1, (until - now + 999) / 1000), (long) Math.ceil(capacity / refillPerSecond));
+        }
+
+        try {
+            Decision decision = jdbcTemplate.queryForObject(ACQUIRE_SQL,
+                    (rs, rowNum) -> Decision.of(rs.getBoolean("allowed"), rs.getDouble("tokens"), capacity, refillPerSecond),
+                    key, capacity,
+                    capacity, refillPerSecond,
+                    capacity, refillPerSecond,
+                    capacity, refillPerSecond);
+            if (decision != null && !decision.allowed()) {
+                rejectedUntil.put(key, now + decision.retryAfterSeconds() * 1000);
+            }
+            return decision;
+        } catch (Exception e) {
+            // Fail open: an unavailable limiter must not take the API down with it
+            log.warn("Shared rate limiter unavailable, allowing request for {}", key, e);
+            return new Decision(true, capacity, 0, 0);
+        }
+    }
+
+    @Override
+    public long activeBuckets() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_buckets", Long.class);
+        return count != null ? count : 0;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        rejectedUntil.values().removeIf(until -> until <= now);
+        jdbcTemplate.update("DELETE FROM rate_limit_buckets WHERE updated_at < now() - INTERVAL '1 hour'");
+    }
+}
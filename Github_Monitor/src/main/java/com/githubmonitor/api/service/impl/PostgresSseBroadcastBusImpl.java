@@ -0,0 +1,212 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.githubmonitor.api.service.SseBroadcastBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fans SSE frames out to every API node, the publishing one included, through Postgres LISTEN/NOTIFY.
+ * Each frame takes its id from sse_frame_seq while holding a transaction-level advisory lock, so ids are assigned
+ * in commit order and every node receives the notifications, and therefore the ids, in increasing order.
+ * Frames larger than the NOTIFY payload limit are stored in sse_frames and only their row id is notified.
+ * Frames are published after the caller's transaction commits, in a transaction of their own: a bus failure
+ * cannot roll back the caller, and the sse_frames row commits together with the NOTIFY that references it.
+ * Frames for one user carry its id and are only delivered to that user's connections.
+ */
+@Service
+@ConditionalOnProperty(name = "app.sse.bus", havingValue = "postgres")
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresSseBroadcastBusImpl implements SseBroadcastBus {
+
+    private static final String CHANNEL = "sse_broadcast";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile FrameListener listener = (id, userId, type, data) -> { };
+    private volatile boolean running = true;
+    private Thread listenerThread;
+    private TransactionTemplate publishTransaction;
+
+    // LISTEN needs a session-pooled connection, a transaction pooler (e.g. port 6543 on Supabase) drops notifications
+    @Value("${app.sse.bus.postgres.listen-url:${spring.datasource.url}}")
+    private String listenUrl;
+
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Value("${app.sse.bus.postgres.max-inline-bytes:7000}")
+    private int maxInlineBytes;
+
+    @Value("${app.sse.bus.postgres.frame-retention-minutes:10}")
+    private int frameRetentionMinutes;
+
+    @PostConstruct
+    public void start() {
+        publishTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        publishTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        listenerThread = new Thread(this::listenLoop, "sse-bus-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public void onFrame(FrameListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void publish(UUID userId, String type, String data) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(userId, type, data);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send(userId, type, data);
+            }
+        });
+    }
+
+    private void send(UUID userId, String type, String data) {
+        try {
+            ObjectNode message = objectMapper.createObjectNode();
+            message.put("type", type);
+            if (userId != null) {
+                message.put("user", userId.toString());
+            }
+
+            // A new connection even inside afterCommit, where the caller's one is still bound to the thread
+            publishTransaction.executeWithoutResult(status -> {
+                // Held until commit: the next publisher takes a higher id and its NOTIFY is queued after this one
+                jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtext(?))", String.class, CHANNEL);
+                message.put("id", jdbcTemplate.queryForObject("SELECT nextval('sse_frame_seq')", Long.class));
+                if (data.getBytes(StandardCharsets.UTF_8).length > maxInlineBytes) {
+                    Long frameId = jdbcTemplate.queryForObject(
+                            "INSERT INTO sse_frames (type, payload) VALUES (?, ?) RETURNING id", Long.class, type, data);
+                    message.put("ref", frameId);
+                } else {
+                    message.putRawValue("data", new RawValue(data));
+                }
+                try {
+                    jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class, CHANNEL, objectMapper.writeValueAsString(message));
+                } catch (JsonProcessingException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (Exception e) {
+            // No node delivers this frame; clients see the gap in the ids and resync on reconnect
+            log.error("Failed to publish SSE frame {} to other nodes", type, e);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void purgeReferencedFrames() {
+        jdbcTemplate.update("DELETE FROM sse_frames WHERE created_at < now() - make_interval(mins => ?)", frameRetentionMinutes);
+    }
+
+    private void listenLoop() {
+        long backoffMs = 1000;
+        while (running) {
+            try (Connection connection = openListenConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for SSE frames on channel {}", CHANNEL);
+                backoffMs = 1000;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(5000);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handleNotification(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("SSE bus listener connection lost, retrying in {} ms", backoffMs, e);
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMs = Math.min(backoffMs * 2, 30000);
+            }
+        }
+    }
+
+    private Connection openListenConnection() throws Exception {
+        if (username == null || username.isEmpty()) {
+            return DriverManager.getConnection(listenUrl);
+        }
+        return DriverManager.getConnection(listenUrl, username, password);
+    }
+
+    private void handleNotification(String parameter) {
+        try {
+            JsonNode message = objectMapper.readTree(parameter);
+            String type = message.path("type").asText();
+            String data;
+            if (message.has("ref")) {
+                List<String> payloads = jdbcTemplate.queryForList(
+                        "SELECT payload FROM sse_frames WHERE id = ?", String.class, message.get("ref").asLong());
+                if (payloads.isEmpty()) {
+                    log.warn("Referenced SSE frame {} no longer exists", message.get("ref").asLong());
+                    return;
+                }
+                data = payloads.get(0);
+            } else {
+                data = message.get("data").toString();
+            }
+
+            UUID userId = message.hasNonNull("user") ? UUID.fromString(message.get("user").asText()) : null;
+            listener.accept(message.get("id").asLong(), userId, type, data);
+        } catch (Exception e) {
+            log.error("Failed to handle SSE frame from another node", e);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.githubmonitor.api.dto.PullRequestStateDTO;
+import com.githubmonitor.api.dto.RepositoryMetricsDTO;
+import com.githubmonitor.api.entity.Event;
+import com.githubmonitor.api.exception.ResourceNotFoundException;
+import com.githubmonitor.api.repository.RepositoryRepository;
+import com.githubmonitor.api.service.PullRequestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Current state of every pull request, one row per (repository, number) upserted at ingest.
+ * Lead times and open counts are then aggregates over this table instead of correlating the
+ * opened and closed events of each PR.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PullRequestServiceImpl implements PullRequestService {
+
+    // Webhooks can arrive out of order: the row with the newest updated_at wins, merges and first closes are never undone
+    private static final String UPSERT_SQL = "INSERT INTO pull_request_state AS pr (repository_id, pr_number, title, author, html_url, "
+            + "state, opened_at, first_closed_at, closed_at, merged_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (repository_id, pr_number) DO UPDATE SET "
+            + "title = CASE WHEN EXCLUDED.updated_at >= pr.updated_at THEN EXCLUDED.title ELSE pr.title END, "
+            + "author = COALESCE(pr.author, EXCLUDED.author), "
+            + "html_url = COALESCE(pr.html_url, EXCLUDED.html_url), "
+            + "state = CASE WHEN COALESCE(pr.merged_at, EXCLUDED.merged_at) IS NOT NULL THEN 'MERGED' "
+            + "WHEN EXCLUDED.updated_at >= pr.updated_at THEN EXCLUDED.state ELSE pr.state END, "
+            + "opened_at = LEAST(pr.opened_at, EXCLUDED.opened_at), "
+            + "first_closed_at = LEAST(pr.first_closed_at, EXCLUDED.first_closed_at), "
+            + "closed_at = CASE WHEN EXCLUDED.updated_at >= pr.updated_at THEN EXCLUDED.closed_at ELSE pr.closed_at END, "
+            + "merged_at = COALESCE(pr.merged_at, EXCLUDED.merged_at), "
+            + "updated_at = GREATEST(pr.updated_at, EXCLUDED.updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RepositoryRepository repositoryRepository;
+
+    @Value("${app.pull-requests.max-results:200}")
+    private int maxResults;
+
+    @Override
+    public void recordEvent(Event event, JsonNode payload) {
+        JsonNode pullRequest = payload.path("pull_request");
+        if (!pullRequest.path("number").isNumber()) {
+            return;
+        }
+
+        LocalDateTime receivedAt = event.getCreatedAt() != null ? event.getCreatedAt() : LocalDateTime.now();
+        Timestamp closedAt = timestamp(pullRequest, "closed_at", null);
+        Timestamp mergedAt = timestamp(pullRequest, "merged_at", null);
+        String state = mergedAt != null ? "MERGED" : "closed".equals(pullRequest.path("state").asText()) ? "CLOSED" : "OPEN";
+
+        // Joins the webhook transaction, like the commits of a push
+        jdbcTemplate.update(UPSERT_SQL,
+                event.getRepository().getId(),
+                pullRequest.path("number").asInt(),
+                pullRequest.path("title").asText(null),
+                pullRequest.path("user").path("login").asText(null),
+                pullRequest.path("html_url").asText(null),
+                state,
+                timestamp(pullRequest, "created_at", receivedAt),
+                closedAt,
+                closedAt,
+                mergedAt,
+                timestamp(pullRequest, "updated_at", receivedAt));
+    }
+
+    private Timestamp timestamp(JsonNode pullRequest, String field, LocalDateTime fallback) {
+        String value = pullRequest.path(field).asText(null);
+        if (value != null && !value.isEmpty()) {
+            try {
+                return Timestamp.valueOf(OffsetDateTime.parse(value).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime());
+            } catch (DateTimeParseException e) {
+                log.debug("Invalid pull request {} {}", field, value);
+            }
+        }
+        return fallback != null ? Timestamp.valueOf(fallback) : null;
+    }
+
+    @Override
+    public RepositoryMetricsDTO.PullRequestsMetrics getMetrics(UUID repositoryId, LocalDateTime since) {
+        Timestamp start = Timestamp.valueOf(since);
+        RepositoryMetricsDTO.PullRequestsMetrics metrics = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FILTER (WHERE opened_at >= ?) AS opened, "
+                        + "COUNT(*) FILTER (WHERE merged_at >= ?) AS merged, "
+                        + "COUNT(*) FILTER (WHERE state = 'CLOSED' AND closed_at >= ?) AS closed, "
+                        + "COUNT(*) FILTER (WHERE state = 'OPEN') AS open "
+                        + "FROM pull_request_state WHERE repository_id = ?",
+                (rs, rowNum) -> RepositoryMetricsDTO.PullRequestsMetrics.builder()
+                        .opened(rs.getInt("opened"))
+                        .merged(rs.getInt("merged"))
+                        .closed(rs.getInt("closed"))
+                        .open(rs.getInt("open"))
+                        .build(),
+                start, start, start, repositoryId);
+
+        metrics.setTimeToMerge(leadTime("merged_at", repositoryId, start));
+        metrics.setTimeToFirstClose(leadTime("first_closed_at", repositoryId, start));
+        return metrics;
+    }
+
+    // column is one of the fixed timestamp columns above, never user input
+    private RepositoryMetricsDTO.LeadTime leadTime(String column, UUID repositoryId, Timestamp start) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) AS total, "
+                        + "percentile_cont(0.5) WITHIN GROUP (ORDER BY hours) AS p50, "
+                        + "percentile_cont(0.75) WITHIN GROUP (ORDER BY hours) AS p75, "
+                        + "percentile_cont(0.9) WITHIN GROUP (ORDER BY hours) AS p90 "
+                        + "FROM (SELECT EXTRACT(EPOCH FROM (" + column + " - opened_at)) / 3600.0 AS hours "
+                        + "FROM pull_request_state WHERE repository_id = ? AND " + column + " >= ?) t",
+                (rs, rowNum) -> RepositoryMetricsDTO.LeadTime.builder()
+                        .count(rs.getInt("total"))
+                        .p50Hours(hours(rs, "p50"))
+                        .p75Hours(hours(rs, "p75"))
+                        .p90Hours(hours(rs, "p90"))
+                        .build(),
+                repositoryId, start);
+    }
+
+    private Double hours(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : Math.round(value * 10) / 10.0;
+    }
+
+    @Override
+    public List<PullRequestStateDTO> findStale(UUID repositoryId, int staleDays, int limit) {
+        if (!repositoryRepository.existsById(repositoryId)) {
+            throw new ResourceNotFoundException("Repository not found");
+        }
+        Timestamp idleSince = Timestamp.valueOf(LocalDateTime.now().minusDays(Math.max(0, staleDays)));
+
+        return jdbcTemplate.query(
+                "SELECT repository_id, pr_number, title, author, html_url, state, opened_at, updated_at "
+                        + "FROM pull_request_state WHERE repository_id = ? AND state = 'OPEN' AND updated_at < ? "
+                        + "ORDER BY updated_at LIMIT ?",
+                (rs, rowNum) -> PullRequestStateDTO.builder()
+                        .repositoryId(rs.getObject("repository_id", UUID.class))
+                        .number(rs.getInt("pr_number"))
+                        .title(rs.getString("title"))
+                        .author(rs.getString("author"))
+                        .htmlUrl(rs.getString("html_url"))
+                        .state(rs.getString("state"))
+                        .openedAt(rs.getTimestamp("opened_at").toLocalDateTime())
+                        .updatedAt(rs.getTimestamp("updated_at").toLocalDateTime())
+                        .build(),
+                repositoryId, idleSince, Math.max(1, Math.min(limit, maxResults)));
+    }
+}
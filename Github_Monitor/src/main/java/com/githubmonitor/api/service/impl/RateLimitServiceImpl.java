@@ -0,0 +1,86 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.dto.RateLimitStatsDTO;
+import com.githubmonitor.api.service.RateLimitService;
+import com.githubmonitor.api.service.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+@RequiredArgsConstructor
+public class RateLimitServiceImpl implements RateLimitService {
+
+    private final RateLimiter rateLimiter;
+    private final Environment environment;
+
+    private final Map<EndpointGroup, Limit> limits = new EnumMap<>(EndpointGroup.class);
+
+    @Value("${app.rate-limit.backend:local}")
+    private String backend;
+
+    @PostConstruct
+    public void init() {
+        // app.rate-limit.<group>.capacity / refill-per-second, e.g. app.rate-limit.exports.capacity
+        limits.put(EndpointGroup.READS, limit(EndpointGroup.READS, 300, 20));
+        limits.put(EndpointGroup.EXPORTS, limit(EndpointGroup.EXPORTS, 5, 0.05));
+        limits.put(EndpointGroup.DIFFS, limit(EndpointGroup.DIFFS, 60, 2));
+    }
+
+    private Limit limit(EndpointGroup group, long defaultCapacity, double defaultRefill) {
+        String prefix = "app.rate-limit." + group.name().toLowerCase(Locale.ROOT);
+        return new Limit(
+                environment.getProperty(prefix + ".capacity", Long.class, defaultCapacity),
+                environment.getProperty(prefix + ".refill-per-second", Double.class, defaultRefill));
+    }
+
+    @Override
+    public RateLimiter.Decision acquire(EndpointGroup group, String clientKey) {
+        Limit limit = limits.get(group);
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(group.name() + ":" + clientKey, limit.capacity, limit.refillPerSecond);
+        (decision.allowed() ? limit.allowed : limit.rejected).increment();
+        return decision;
+    }
+
+    @Override
+    public long getCapacity(EndpointGroup group) {
+        return limits.get(group).capacity;
+    }
+
+    @Override
+    public List<RateLimitStatsDTO> getStats() {
+        long activeBuckets = rateLimiter.activeBuckets();
+        List<RateLimitStatsDTO> stats = new ArrayList<>();
+        limits.forEach((group, limit) -> stats.add(RateLimitStatsDTO.builder()
+                .group(group.name())
+                .capacity(limit.capacity)
+                .refillPerSecond(limit.refillPerSecond)
+                .allowed(limit.allowed.sum())
+                .rejected(limit.rejected.sum())
+                .backend(backend)
+                .activeBuckets(activeBuckets)
+                .build()));
+        return stats;
+    }
+
+    private static class Limit {
+        private final long capacity;
+        private final double refillPerSecond;
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        Limit(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+}
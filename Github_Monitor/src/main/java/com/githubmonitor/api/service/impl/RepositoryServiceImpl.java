@@ -13,7 +13,9 @@ import com.githubmonitor.api.exception.ResourceNotFoundException;
 import com.githubmonitor.api.repository.EventRepository;
 import com.githubmonitor.api.repository.RepositoryRepository;
 import com.githubmonitor.api.repository.UserRepository;
+import com.githubmonitor.api.service.DashboardSummaryService;
 import com.githubmonitor.api.service.RepositoryService;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -25,18 +27,24 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class RepositoryServiceImpl implements RepositoryService {
 
     private final RepositoryRepository repositoryRepository;
+    private final EntityManager entityManager;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
     private final ObjectMapper objectMapper;
     private final com.githubmonitor.api.service.AuditLogService auditLogService;
     private final com.githubmonitor.api.service.SseService sseService;
+    private final DashboardSummaryService dashboardSummaryService;
+    private final com.githubmonitor.api.service.CommitService commitService;
+    private final com.githubmonitor.api.service.PullRequestService pullRequestService;
 
     @Override
     public Page<RepositoryDTO> findAll(Pageable pageable) {
@@ -44,6 +52,25 @@ public class RepositoryServiceImpl implements RepositoryService {
                 .map(this::toDTO);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(UUID repositoryId, Consumer<RepositoryDTO> consumer) {
+        if (repositoryId != null) {
+            repositoryRepository.findById(repositoryId).map(this::toDTO).ifPresent(consumer);
+            return;
+        }
+        try (Stream<Repository> rows = repositoryRepository.streamAllByLastSyncedAtDesc()) {
+            int[] count = {0};
+            rows.forEach(row -> {
+                consumer.accept(toDTO(row));
+                // Keep the persistence context from growing with the cursor
+                if (++count[0] % 500 == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+
     @Override
     @Transactional
     public RepositoryDTO create(RepositoryInput input) {
@@ -61,6 +88,7 @@ public class RepositoryServiceImpl implements RepositoryService {
                 .build();
 
         Repository savedRepository = repositoryRepository.save(repository);
+        dashboardSummaryService.recordRepositoryCreated(savedRepository.getId());
         
         auditLogService.log("CREATE_REPOSITORY", "Repository", savedRepository.getGithubRepoId());
         
@@ -77,6 +105,7 @@ public class RepositoryServiceImpl implements RepositoryService {
                 .orElseThrow(() -> new ResourceNotFoundException("Repository not found"));
 
         repositoryRepository.delete(repository);
+        dashboardSummaryService.recordRepositoryDeleted(id);
         
         auditLogService.log("DELETE_REPOSITORY", "Repository", repository.getGithubRepoId());
         sseService.sendUpdate("repository-update", java.util.Map.of("id", id, "action", "delete"));
@@ -98,67 +127,34 @@ public class RepositoryServiceImpl implements RepositoryService {
             startDate = java.time.LocalDateTime.now().minusDays(90);
         }
 
-        List<Event> events = eventRepository.findByRepositoryIdAndCreatedAtAfter(id, startDate);
+        // Commits come from the commits table: every commit of a push counts once, attributed to its author
+        long commitsCount = commitService.countCommits(id, startDate);
+        List<RepositoryMetricsDTO.ContributorMetric> topContributors = commitService.topAuthors(id, startDate, 5);
+
+        // Pull requests come from pull_request_state, one row per PR kept current at ingest
+        RepositoryMetricsDTO.PullRequestsMetrics pullRequests = pullRequestService.getMetrics(id, startDate);
+
+        List<Event> events = eventRepository.findByRepositoryIdAndTypeInAndCreatedAtAfter(id,
+                List.of(Event.EventType.ISSUE), startDate);
 
-        int commitsCount = 0;
-        int prOpened = 0;
-        int prMerged = 0;
-        int prClosed = 0;
         int issuesCount = 0;
-        java.util.Map<String, Integer> contributorCommits = new java.util.HashMap<>();
 
         for (Event event : events) {
             try {
                 com.fasterxml.jackson.databind.JsonNode payload = objectMapper.readTree(event.getPayload());
-                String action = payload.path("action").asText("");
-
-                if (event.getType() == Event.EventType.PUSH) {
-                    commitsCount++;
-                    // Count contributor commits
-                    String login = "unknown";
-                    if (payload.has("pusher")) {
-                        login = payload.path("pusher").path("name").asText("unknown");
-                    } else if (payload.has("sender")) {
-                        login = payload.path("sender").path("login").asText("unknown");
-                    }
-                    contributorCommits.merge(login, 1, Integer::sum);
-
-                } else if (event.getType() == Event.EventType.PULL_REQUEST) {
-                    if ("opened".equals(action)) {
-                        prOpened++;
-                    } else if ("closed".equals(action)) {
-                        boolean merged = payload.path("pull_request").path("merged").asBoolean(false);
-                        if (merged) {
-                            prMerged++;
-                        } else {
-                            prClosed++;
-                        }
-                    }
-                } else if (event.getType() == Event.EventType.ISSUE) {
-                    if ("opened".equals(action)) {
-                        issuesCount++;
-                    }
+                if ("opened".equals(payload.path("action").asText(""))) {
+                    issuesCount++;
                 }
             } catch (Exception e) {
                 // Ignore parsing errors for metrics
             }
         }
 
-        List<RepositoryMetricsDTO.ContributorMetric> topContributors = contributorCommits.entrySet().stream()
-                .map(entry -> new RepositoryMetricsDTO.ContributorMetric(entry.getKey(), entry.getValue()))
-                .sorted((a, b) -> b.getCommits().compareTo(a.getCommits()))
-                .limit(5)
-                .collect(Collectors.toList());
-
         return RepositoryMetricsDTO.builder()
                 .repositoryId(id)
                 .period(period)
-                .commitsCount(commitsCount)
-                .pullRequests(RepositoryMetricsDTO.PullRequestsMetrics.builder()
-                        .opened(prOpened)
-                        .merged(prMerged)
-                        .closed(prClosed)
-                        .build())
+                .commitsCount((int) commitsCount)
+                .pullRequests(pullRequests)
                 .issuesCount(issuesCount)
                 .topContributors(topContributors)
                 .build();
@@ -0,0 +1,152 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.dto.HotspotReportDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving summary: at most capacity counters, a new item replaces the smallest one and inherits its
+ * count as error. Counters sit in a min-heap so offers are O(log capacity). Not thread-safe.
+ */
+class SpaceSavingSketch {
+
+    private final Map<String, Counter> byItem = new HashMap<>();
+    private final Counter[] heap;
+    private int size;
+
+    SpaceSavingSketch(int capacity) {
+        heap = new Counter[capacity];
+    }
+
+    void offer(String item, long increment) {
+        Counter counter = byItem.get(item);
+        if (counter != null) {
+            counter.count += increment;
+            siftDown(counter.index);
+        } else if (size < heap.length) {
+            restore(item, increment, 0);
+        } else {
+            Counter evicted = heap[0];
+            byItem.remove(evicted.item);
+            counter = new Counter(item, evicted.count + increment, evicted.count);
+            byItem.put(item, counter);
+            place(counter, 0);
+            siftDown(0);
+        }
+    }
+
+    void restore(String item, long count, long error) {
+        if (size == heap.length || byItem.containsKey(item)) {
+            return;
+        }
+        Counter counter = new Counter(item, count, error);
+        byItem.put(item, counter);
+        place(counter, size++);
+        siftUp(counter.index);
+    }
+
+    // Most an item absent from the summary can have been counted
+    long floor() {
+        return size == heap.length ? heap[0].count : 0;
+    }
+
+    List<Counter> counters() {
+        return Arrays.asList(heap).subList(0, size);
+    }
+
+    SpaceSavingSketch copy() {
+        SpaceSavingSketch copy = new SpaceSavingSketch(heap.length);
+        for (Counter counter : counters()) {
+            copy.restore(counter.item, counter.count, counter.error);
+        }
+        return copy;
+    }
+
+    /**
+     * Sums the summaries of several days. A tracked item has count - error <= true count <= count on its day;
+     * an item missing from a full day may still have up to that day's floor there. changes is the resulting upper
+     * bound and maxOverestimate how far above the true total it can be.
+     */
+    static List<HotspotReportDTO.Hotspot> merge(Collection<SpaceSavingSketch> days, int limit) {
+        Map<String, long[]> totals = new HashMap<>();
+        long floors = 0;
+        for (SpaceSavingSketch day : days) {
+            long floor = day.floor();
+            floors += floor;
+            for (Counter counter : day.counters()) {
+                long[] total = totals.computeIfAbsent(counter.item, item -> new long[2]);
+                total[0] += counter.count - floor;
+                total[1] += counter.error - floor;
+            }
+        }
+
+        long missingFloors = floors;
+        List<HotspotReportDTO.Hotspot> hotspots = new ArrayList<>(totals.size());
+        totals.forEach((item, total) -> hotspots.add(HotspotReportDTO.Hotspot.builder()
+                .path(item)
+                .changes(total[0] + missingFloors)
+                .maxOverestimate(total[1] + missingFloors)
+                .build()));
+        return hotspots.stream()
+                .sorted(Comparator.comparing(HotspotReportDTO.Hotspot::getChanges).reversed()
+                        .thenComparing(HotspotReportDTO.Hotspot::getPath))
+                .limit(limit)
+                .toList();
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    static class Counter {
+        final String item;
+        long count;
+        long error;
+        private int index;
+
+        Counter(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
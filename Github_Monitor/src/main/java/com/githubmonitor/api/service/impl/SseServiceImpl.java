@@ -1,34 +1,229 @@
 package com.githubmonitor.api.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.githubmonitor.api.dto.EventDTO;
+import com.githubmonitor.api.security.UserPrincipal;
+import com.githubmonitor.api.service.SseBroadcastBus;
 import com.githubmonitor.api.service.SseService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class SseServiceImpl implements SseService {
 
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private static final String RESYNC_EVENT = "resync";
+    private static final String BATCH_EVENT = "batch-update";
+
+    private final ObjectMapper objectMapper;
+    private final SseBroadcastBus broadcastBus;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Ids come from the broadcast bus and are the same on every node
+    private final Deque<Frame> replayBuffer = new ArrayDeque<>();
+    private final Object lock = new Object();
+    private long sequence = 0;
+    // Frames up to this id were published before this node started or while it was cut off from the bus
+    private long missedUpTo = 0;
+
+    @Value("${app.sse.replay-buffer-size:1000}")
+    private int replayBufferSize;
+
+    @Value("${app.sse.coalesce.enabled:false}")
+    private boolean coalesceByDefault;
+
+    @Value("${app.sse.coalesce.window-ms:250}")
+    private long coalesceWindowMs;
+
+    @Value("${app.sse.coalesce.max-items:50}")
+    private int coalesceMaxItems;
+
+    private ScheduledExecutorService flushScheduler;
+
+    // Shared by every reactive subscriber. On Spring MVC each connection still gets its own SseEmitter and AsyncContext,
+    // and frames are written with blocking I/O on the application task executor (see EventStreamSoakTest).
+    // Keeps the same history as replayBuffer so late subscribers can pick up frames published before they attached.
+    private Sinks.Many<Frame> reactiveSink;
+
+    @PostConstruct
+    public void init() {
+        // Every frame, including the ones published here, reaches the subscribers through the bus
+        broadcastBus.onFrame(this::broadcastLocal);
+
+        reactiveSink = Sinks.many().replay().limit(replayBufferSize);
+
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sse-batch-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdownNow();
+    }
 
     @Override
-    public SseEmitter subscribe() {
+    public SseEmitter subscribe(String lastEventId, Boolean batch) {
         // Timeout set to 1 hour (3600000 ms) to keep connection open
         SseEmitter emitter = new SseEmitter(3600000L);
-        
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-        emitter.onError((e) -> emitters.remove(emitter));
-        
-        emitters.add(emitter);
+        UUID userId = getCurrentUserId();
+        Subscriber subscriber = new Subscriber(emitter, batch != null ? batch : coalesceByDefault, userId);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError((e) -> subscribers.remove(subscriber));
+
+        // Replay happens under the same lock as publishing, so the new subscriber sees every frame exactly once and in order.
+        // The emitter is not yet bound to the response here, so these sends are only buffered in memory.
+        synchronized (lock) {
+            try {
+                replay(emitter, lastEventId, userId);
+            } catch (IOException e) {
+                log.debug("Failed to replay SSE frames to new subscriber", e);
+                return emitter;
+            }
+            subscribers.add(subscriber);
+        }
         return emitter;
     }
 
+    @Override
+    public Flux<ServerSentEvent<String>> stream(String lastEventId, Boolean batch) {
+        UUID userId = getCurrentUserId();
+        long fromSequence;
+        boolean resync;
+        synchronized (lock) {
+            long resumeSequence = resumeSequence(lastEventId);
+            resync = resumeSequence < 0;
+            fromSequence = resync ? sequence : resumeSequence;
+        }
+
+        Flux<Frame> frames = reactiveSink.asFlux()
+                .filter(frame -> frame.sequence() > fromSequence && frame.isFor(userId));
+
+        Flux<ServerSentEvent<String>> events = (batch != null ? batch : coalesceByDefault)
+                ? frames.bufferTimeout(coalesceMaxItems, Duration.ofMillis(coalesceWindowMs)).map(this::toServerSentEvent)
+                : frames.map(Frame::toServerSentEvent);
+
+        if (resync) {
+            String id = Long.toString(fromSequence);
+            return Flux.concat(Flux.just(ServerSentEvent.builder("{\"lastEventId\":\"" + id + "\"}")
+                    .id(id)
+                    .event(RESYNC_EVENT)
+                    .build()), events);
+        }
+        return events;
+    }
+
+    private ServerSentEvent<String> toServerSentEvent(List<Frame> frames) {
+        if (frames.size() == 1) {
+            return frames.get(0).toServerSentEvent();
+        }
+        try {
+            return ServerSentEvent.builder(toBatchJson(frames))
+                    .id(Long.toString(frames.get(frames.size() - 1).sequence()))
+                    .event(BATCH_EVENT)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize SSE batch", e);
+        }
+    }
+
+    private void replay(SseEmitter emitter, String lastEventId, UUID userId) throws IOException {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return;
+        }
+
+        long lastSequence = resumeSequence(lastEventId);
+        if (lastSequence < 0) {
+            sendResync(emitter);
+            return;
+        }
+
+        for (Frame frame : replayBuffer) {
+            if (frame.sequence() > lastSequence && frame.isFor(userId)) {
+                emitter.send(frame.toEvent());
+            }
+        }
+    }
+
+    /**
+     * Sequence to resume after, the current sequence when no id was sent, or -1 when the client must resync.
+     * Must be called while holding the lock.
+     */
+    private long resumeSequence(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return sequence;
+        }
+
+        long lastSequence = parseSequence(lastEventId);
+        if (lastSequence < 0 || lastSequence > sequence || lastSequence < missedUpTo) {
+            // Unknown id, or frames after it never reached this node
+            return -1;
+        }
+
+        long oldestBuffered = replayBuffer.isEmpty() ? sequence + 1 : replayBuffer.peekFirst().sequence();
+        if (lastSequence + 1 < oldestBuffered) {
+            // Gap is larger than the buffer, client must reload its data
+            return -1;
+        }
+        return lastSequence;
+    }
+
+    private void sendResync(SseEmitter emitter) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(Long.toString(sequence))
+                .name(RESYNC_EVENT)
+                .data(Map.of("lastEventId", Long.toString(sequence))));
+    }
+
+    private static long parseSequence(String lastEventId) {
+        try {
+            return Long.parseLong(lastEventId);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Read on the request thread, where the JWT filter set the principal
+    private static UUID getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+
     @Override
     public void sendEvent(EventDTO event) {
         sendUpdate("event-update", event);
@@ -36,18 +231,204 @@ public class SseServiceImpl implements SseService {
 
     @Override
     public void sendUpdate(String type, Object data) {
-        List<SseEmitter> deadEmitters = new CopyOnWriteArrayList<>();
-        
-        emitters.forEach(emitter -> {
-            try {
+        send(null, type, data);
+    }
+
+    @Override
+    public void sendToUser(UUID userId, String type, Object data) {
+        send(Objects.requireNonNull(userId), type, data);
+    }
+
+    private void send(UUID userId, String type, Object data) {
+        String json;
+        try {
+            // Serialized once per frame instead of once per subscriber, and shared with the other nodes
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize SSE frame {}", type, e);
+            return;
+        }
+
+        broadcastBus.publish(userId, type, json);
+    }
+
+    // Frames for one user still take an id, other subscribers just see a gap in the ids
+    private void broadcastLocal(long id, UUID userId, String type, String data) {
+        List<Subscriber> targets = new ArrayList<>();
+        synchronized (lock) {
+            if (id <= sequence) {
+                log.warn("Dropping SSE frame {} received after frame {}", id, sequence);
+                return;
+            }
+            if (id != sequence + 1) {
+                missedUpTo = id - 1;
+            }
+            sequence = id;
+            Frame frame = new Frame(id, type, data, userId);
+            replayBuffer.addLast(frame);
+            while (replayBuffer.size() > replayBufferSize) {
+                replayBuffer.removeFirst();
+            }
+            // Queued in id order under the lock, sent outside it
+            for (Subscriber subscriber : subscribers) {
+                if (frame.isFor(subscriber.userId)) {
+                    subscriber.enqueue(frame);
+                    targets.add(subscriber);
+                }
+            }
+            reactiveSink.tryEmitNext(frame);
+        }
+
+        targets.forEach(this::drain);
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            subscriber.drain();
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private void flush(Subscriber subscriber) {
+        try {
+            subscriber.flush();
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private String toBatchJson(List<Frame> frames) throws JsonProcessingException {
+        StringBuilder json = new StringBuilder("[");
+        for (Frame frame : frames) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"type\":").append(objectMapper.writeValueAsString(frame.name()))
+                    .append(",\"data\":").append(frame.data()).append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * A connected client. Publishers queue frames in id order and whichever of them gets to drain the queue
+     * sends them, one thread at a time, so concurrent publishers never reorder a client's frames and a slow
+     * client only holds up the thread draining it. A client more than app.sse.replay-buffer-size frames behind
+     * is disconnected and catches up through Last-Event-ID on reconnect.
+     * In batch mode frames are held for up to app.sse.coalesce.window-ms or app.sse.coalesce.max-items and
+     * written as one batch-update frame, so a push burst costs one flush and one client render instead of one per event.
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final boolean batch;
+        private final UUID userId;
+        private final List<Frame> pending = new ArrayList<>();
+        private final Deque<Frame> outbox = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private boolean overflowed;
+
+        Subscriber(SseEmitter emitter, boolean batch, UUID userId) {
+            this.emitter = emitter;
+            this.batch = batch;
+            this.userId = userId;
+        }
+
+        // Called under the service lock
+        void enqueue(Frame frame) {
+            synchronized (outbox) {
+                if (outbox.size() >= replayBufferSize) {
+                    overflowed = true;
+                    return;
+                }
+                outbox.addLast(frame);
+            }
+        }
+
+        void drain() throws IOException {
+            while (draining.compareAndSet(false, true)) {
+                try {
+                    Frame frame;
+                    while ((frame = next()) != null) {
+                        offer(frame);
+                    }
+                    if (isOverflowed()) {
+                        emitter.complete();
+                        throw new IllegalStateException("SSE subscriber fell behind");
+                    }
+                } finally {
+                    draining.set(false);
+                }
+                // A frame queued after the last poll whose publisher saw this drain still running
+                synchronized (outbox) {
+                    if (outbox.isEmpty() && !overflowed) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private Frame next() {
+            synchronized (outbox) {
+                return overflowed ? null : outbox.pollFirst();
+            }
+        }
+
+        private boolean isOverflowed() {
+            synchronized (outbox) {
+                return overflowed;
+            }
+        }
+
+        private synchronized void offer(Frame frame) throws IOException {
+            if (!batch) {
+                emitter.send(frame.toEvent());
+                return;
+            }
+
+            pending.add(frame);
+            if (pending.size() >= coalesceMaxItems) {
+                flush();
+            } else if (pending.size() == 1) {
+                flushScheduler.schedule(() -> SseServiceImpl.this.flush(this), coalesceWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        synchronized void flush() throws IOException {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            if (pending.size() == 1) {
+                emitter.send(pending.get(0).toEvent());
+            } else {
+                Frame last = pending.get(pending.size() - 1);
                 emitter.send(SseEmitter.event()
-                        .name(type)
-                        .data(data));
-            } catch (IOException e) {
-                deadEmitters.add(emitter);
+                        .id(Long.toString(last.sequence()))
+                        .name(BATCH_EVENT)
+                        .data(toBatchJson(pending)));
             }
-        });
-        
-        emitters.removeAll(deadEmitters);
+            pending.clear();
+        }
+    }
+
+    // userId is null for frames sent to everyone
+    private record Frame(long sequence, String name, String data, UUID userId) {
+        boolean isFor(UUID subscriberId) {
+            return userId == null || userId.equals(subscriberId);
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            return SseEmitter.event()
+                    .id(Long.toString(sequence))
+                    .name(name)
+                    .data(data);
+        }
+
+        ServerSentEvent<String> toServerSentEvent() {
+            return ServerSentEvent.builder(data)
+                    .id(Long.toString(sequence))
+                    .event(name)
+                    .build();
+        }
     }
 }
@@ -1,12 +1,18 @@
 package com.githubmonitor.api.service.impl;
 
-import com.githubmonitor.api.service.NotificationService;
+import com.githubmonitor.api.entity.Notification;
+import com.githubmonitor.api.service.NotificationChannel;
 import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import java.awt.*;
 
+// Desktop tray balloon on Windows, application log everywhere else
 @Service
-public class WindowsNotificationServiceImpl implements NotificationService {
+@Slf4j
+public class TrayNotificationChannelImpl implements NotificationChannel {
+
+    public static final String NAME = "TRAY";
 
     private SystemTray tray;
     private TrayIcon trayIcon;
@@ -16,19 +22,19 @@ public class WindowsNotificationServiceImpl implements NotificationService {
         // Safe check for OS to prevent errors on Linux/Server environments (Render)
         String os = System.getProperty("os.name").toLowerCase();
         if (!os.contains("win")) {
-            System.out.println("Non-Windows OS detected (" + os + "). Notifications will only be logged to console.");
+            log.info("Non-Windows OS detected ({}). Notifications will only be logged.", os);
             return;
         }
 
         try {
             // Extra safety check for Headless mode
             if (GraphicsEnvironment.isHeadless()) {
-                 System.out.println("Headless mode detected. Notifications will only be logged to console.");
+                 log.info("Headless mode detected. Notifications will only be logged.");
                  return;
             }
 
             if (!SystemTray.isSupported()) {
-                System.err.println("SystemTray is not supported. Notifications will only be logged.");
+                log.warn("SystemTray is not supported. Notifications will only be logged.");
                 return;
             }
             
@@ -41,10 +47,10 @@ public class WindowsNotificationServiceImpl implements NotificationService {
             trayIcon.setImageAutoSize(true);
             trayIcon.setToolTip("Github Monitor Running");
             tray.add(trayIcon);
-            System.out.println("Windows Notification Service initialized successfully.");
+            log.info("Windows Notification Service initialized successfully.");
         } catch (Throwable e) {
              // Catch Throwable to ensure application startup never fails due to notification service
-             System.err.println("Error initializing Notification Service (Safe Fallback): " + e.getMessage());
+             log.warn("Error initializing Notification Service (Safe Fallback): {}", e.getMessage());
         }
     }
 
@@ -63,12 +69,22 @@ public class WindowsNotificationServiceImpl implements NotificationService {
     }
 
     @Override
-    public void sendNotification(String title, String message) {
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void send(Notification notification) {
         if (trayIcon != null) {
-            trayIcon.displayMessage(title, message, TrayIcon.MessageType.INFO);
+            trayIcon.displayMessage(notification.getTitle(), notification.getMessage(), TrayIcon.MessageType.INFO);
         } else {
-            // Fallback to console log if tray is not supported
-            System.out.println(">>> NOTIFICATION [" + title + "]: " + message);
+            // Fallback to the log if tray is not supported
+            log.info("NOTIFICATION [{}]: {}", notification.getTitle(), notification.getMessage());
         }
     }
 }
@@ -3,6 +3,7 @@ package com.githubmonitor.api.service.impl;
 import com.githubmonitor.api.dto.UserDTO;
 import com.githubmonitor.api.entity.User;
 import com.githubmonitor.api.repository.UserRepository;
+import com.githubmonitor.api.security.JwtAuthenticationCache;
 import com.githubmonitor.api.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +20,7 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final JwtAuthenticationCache jwtAuthenticationCache;
 
     @Override
     @Transactional(readOnly = true)
@@ -59,6 +61,7 @@ public class UserServiceImpl implements UserService {
         // Email and matricula updates might require uniqueness checks, skipping for now or handle carefully
         
         user = userRepository.save(user);
+        jwtAuthenticationCache.evictUser(user.getEmail());
         log.info("User updated: {}", id);
         return toDTO(user);
     }
@@ -66,10 +69,10 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public void deleteUser(UUID id) {
-        if (!userRepository.existsById(id)) {
-            throw new RuntimeException("User not found with id: " + id);
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        userRepository.delete(user);
+        jwtAuthenticationCache.evictUser(user.getEmail());
         log.info("User deleted with id: {}", id);
     }
 
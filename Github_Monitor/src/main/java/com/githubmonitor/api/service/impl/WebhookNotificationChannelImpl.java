@@ -0,0 +1,57 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.entity.Notification;
+import com.githubmonitor.api.service.NotificationChannel;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+
+import java.util.Map;
+
+// Slack-compatible incoming webhook: POST {"text": "..."} to app.notifications.webhook.url
+@Service
+public class WebhookNotificationChannelImpl implements NotificationChannel {
+
+    public static final String NAME = "WEBHOOK";
+
+    @Value("${app.notifications.webhook.url:}")
+    private String url;
+
+    @Value("${app.notifications.webhook.timeout-ms:5000}")
+    private int timeoutMs;
+
+    private RestClient restClient;
+
+    @PostConstruct
+    public void init() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        restClient = RestClient.builder()
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return url != null && !url.isBlank();
+    }
+
+    @Override
+    public void send(Notification notification) {
+        restClient.post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Map.of("text", "*" + notification.getTitle() + "*\n" + notification.getMessage()))
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
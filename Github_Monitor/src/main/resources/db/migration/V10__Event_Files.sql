@@ -0,0 +1,59 @@
+-- Dicionário de caminhos: cada caminho de arquivo é gravado uma vez e referenciado por id em event_files.
+-- text_pattern_ops permite usar o índice em buscas por prefixo (LIKE 'src/main/%') independente da collation.
+CREATE TABLE IF NOT EXISTS file_paths (
+    id BIGSERIAL PRIMARY KEY,
+    path TEXT NOT NULL,
+    CONSTRAINT uq_file_paths_path UNIQUE (path)
+);
+CREATE INDEX IF NOT EXISTS idx_file_paths_prefix ON file_paths (path text_pattern_ops);
+
+-- Arquivos tocados por cada push (commits[].added/modified/removed), uma linha por evento e caminho.
+-- change_type: A (adicionado), M (modificado), R (removido).
+CREATE TABLE IF NOT EXISTS event_files (
+    path_id BIGINT NOT NULL,
+    repository_id UUID NOT NULL,
+    event_id UUID NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    contributor_id UUID,
+    change_type CHAR(1) NOT NULL,
+    CONSTRAINT pk_event_files PRIMARY KEY (path_id, event_id),
+    CONSTRAINT fk_event_files_path FOREIGN KEY (path_id) REFERENCES file_paths(id),
+    CONSTRAINT fk_event_files_repository FOREIGN KEY (repository_id) REFERENCES repositories(id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_event_files_path_repository_date ON event_files (path_id, repository_id, created_at DESC) INCLUDE (contributor_id);
+CREATE INDEX IF NOT EXISTS idx_event_files_created_at ON event_files (created_at);
+
+-- Carga inicial a partir dos pushes já armazenados (payloads comprimidos {"$z": ...} ficam de fora, como em V9).
+-- Mudança líquida por push: vale a do último commit, e um arquivo adicionado e depois modificado continua "A".
+CREATE TEMP TABLE event_files_backfill ON COMMIT DROP AS
+SELECT DISTINCT ON (t.event_id, t.path)
+       t.event_id, t.repository_id, t.created_at, t.contributor_id, t.path,
+       CASE WHEN t.change = 'M' AND bool_or(t.change = 'A') OVER (PARTITION BY t.event_id, t.path) THEN 'A' ELSE t.change END AS change_type
+FROM (
+    SELECT e.id AS event_id, e.repository_id, e.created_at, e.contributor_id, f.path, f.change, c.ord
+    FROM events e
+    CROSS JOIN LATERAL jsonb_array_elements(CASE WHEN jsonb_typeof(e.payload->'commits') = 'array' THEN e.payload->'commits' ELSE '[]'::jsonb END)
+        WITH ORDINALITY AS c(commit, ord)
+    CROSS JOIN LATERAL (
+        SELECT value AS path, 'A' AS change
+        FROM jsonb_array_elements_text(CASE WHEN jsonb_typeof(c.commit->'added') = 'array' THEN c.commit->'added' ELSE '[]'::jsonb END)
+        UNION ALL
+        SELECT value, 'M'
+        FROM jsonb_array_elements_text(CASE WHEN jsonb_typeof(c.commit->'modified') = 'array' THEN c.commit->'modified' ELSE '[]'::jsonb END)
+        UNION ALL
+        SELECT value, 'R'
+        FROM jsonb_array_elements_text(CASE WHEN jsonb_typeof(c.commit->'removed') = 'array' THEN c.commit->'removed' ELSE '[]'::jsonb END)
+    ) f
+    WHERE e.type = 'PUSH' AND f.path <> ''
+) t
+ORDER BY t.event_id, t.path, t.ord DESC, CASE t.change WHEN 'R' THEN 0 WHEN 'M' THEN 1 ELSE 2 END;
+
+INSERT INTO file_paths (path)
+SELECT DISTINCT path FROM event_files_backfill ORDER BY path
+ON CONFLICT DO NOTHING;
+
+INSERT INTO event_files (path_id, repository_id, event_id, created_at, contributor_id, change_type)
+SELECT fp.id, b.repository_id, b.event_id, b.created_at, b.contributor_id, b.change_type
+FROM event_files_backfill b
+JOIN file_paths fp ON fp.path = b.path
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,13 @@
+-- Snapshots dos contadores top-K de hotspots (arquivos e diretórios mais alterados) por repositório e dia.
+-- kind: F (arquivos) ou D (diretórios); counters: [[caminho, contagem, erro máximo], ...].
+-- O HotspotService grava só os dias alterados e recarrega a janela na inicialização.
+CREATE TABLE IF NOT EXISTS hotspot_snapshots (
+    repository_id UUID NOT NULL,
+    day DATE NOT NULL,
+    kind CHAR(1) NOT NULL,
+    counters JSONB NOT NULL,
+    snapshot_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_hotspot_snapshots PRIMARY KEY (repository_id, day, kind),
+    CONSTRAINT fk_hotspot_snapshots_repository FOREIGN KEY (repository_id) REFERENCES repositories(id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS idx_hotspot_snapshots_day ON hotspot_snapshots (day);
@@ -0,0 +1,53 @@
+-- Estado atual de cada pull request, atualizado (upsert) a partir de cada evento PULL_REQUEST.
+-- Os tempos vêm do objeto pull_request do payload; updated_at decide qual evento é o mais recente quando chegam fora de ordem.
+-- first_closed_at guarda o primeiro fechamento mesmo se o PR for reaberto depois.
+CREATE TABLE IF NOT EXISTS pull_request_state (
+    repository_id UUID NOT NULL,
+    pr_number INTEGER NOT NULL,
+    title TEXT,
+    author VARCHAR(255),
+    html_url TEXT,
+    state VARCHAR(10) NOT NULL, -- OPEN, CLOSED ou MERGED
+    opened_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    first_closed_at TIMESTAMP WITH TIME ZONE,
+    closed_at TIMESTAMP WITH TIME ZONE,
+    merged_at TIMESTAMP WITH TIME ZONE,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_pull_request_state PRIMARY KEY (repository_id, pr_number),
+    CONSTRAINT fk_pull_request_state_repository FOREIGN KEY (repository_id) REFERENCES repositories(id) ON DELETE CASCADE
+);
+-- PRs abertos e parados (sem atividade) por repositório
+CREATE INDEX IF NOT EXISTS idx_pull_request_state_open ON pull_request_state (repository_id, updated_at) WHERE state = 'OPEN';
+-- Percentis de tempo até o merge e até o primeiro fechamento por período
+CREATE INDEX IF NOT EXISTS idx_pull_request_state_merged ON pull_request_state (repository_id, merged_at) WHERE merged_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_pull_request_state_first_closed ON pull_request_state (repository_id, first_closed_at) WHERE first_closed_at IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_pull_request_state_opened ON pull_request_state (repository_id, opened_at);
+
+-- Carga inicial a partir dos eventos já armazenados (payloads comprimidos {"$z": ...} ficam de fora, como em V9):
+-- o evento mais recente de cada PR define o estado, o menor closed_at visto vira first_closed_at.
+INSERT INTO pull_request_state (repository_id, pr_number, title, author, html_url, state, opened_at, first_closed_at, closed_at, merged_at, updated_at)
+SELECT DISTINCT ON (t.repository_id, t.pr_number)
+       t.repository_id, t.pr_number, t.title, t.author, t.html_url,
+       CASE WHEN MAX(t.merged_at) OVER w IS NOT NULL THEN 'MERGED' WHEN t.pr_state = 'closed' THEN 'CLOSED' ELSE 'OPEN' END,
+       MIN(t.opened_at) OVER w,
+       MIN(t.closed_at) OVER w,
+       t.closed_at,
+       MAX(t.merged_at) OVER w,
+       t.updated_at
+FROM (
+    SELECT e.repository_id,
+           (e.payload->'pull_request'->>'number')::int AS pr_number,
+           e.payload->'pull_request'->>'title' AS title,
+           e.payload->'pull_request'->'user'->>'login' AS author,
+           e.payload->'pull_request'->>'html_url' AS html_url,
+           e.payload->'pull_request'->>'state' AS pr_state,
+           COALESCE((e.payload->'pull_request'->>'created_at')::timestamptz, e.created_at) AS opened_at,
+           (e.payload->'pull_request'->>'closed_at')::timestamptz AS closed_at,
+           (e.payload->'pull_request'->>'merged_at')::timestamptz AS merged_at,
+           COALESCE((e.payload->'pull_request'->>'updated_at')::timestamptz, e.created_at) AS updated_at
+    FROM events e
+    WHERE e.type = 'PULL_REQUEST' AND jsonb_typeof(e.payload->'pull_request'->'number') = 'number'
+) t
+WINDOW w AS (PARTITION BY t.repository_id, t.pr_number)
+ORDER BY t.repository_id, t.pr_number, t.updated_at DESC
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,50 @@
+-- event_deliveries passa a ser particionada por mês como events, para a retenção remover as duas com DROP/DETACH de partição
+-- em vez de DELETE em massa. repository_id com ON DELETE CASCADE remove as entregas junto com o repositório.
+-- Uma tabela particionada não tem UNIQUE global em delivery_id: o trigger serializa por delivery_id com advisory lock
+-- e procura o id em todas as partições (índice por partição) antes de registrar.
+-- alerts.event_id não é mais limpo na expiração: referências a eventos removidos ficam órfãs e são lidas como nulas.
+SET LOCAL TimeZone = 'UTC';
+
+ALTER TABLE event_deliveries RENAME TO event_deliveries_unpartitioned;
+
+CREATE TABLE event_deliveries (
+    delivery_id VARCHAR(255) NOT NULL,
+    repository_id UUID NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_event_deliveries PRIMARY KEY (delivery_id, created_at),
+    CONSTRAINT fk_event_deliveries_repository FOREIGN KEY (repository_id) REFERENCES repositories(id) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE event_deliveries_default PARTITION OF event_deliveries DEFAULT;
+
+-- Mesmos meses das partições de events
+DO $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'events'::regclass AND c.relname ~ '^events_p[0-9]{6}$'
+    LOOP
+        PERFORM create_monthly_partition('event_deliveries', to_date(substr(partition_name, 9), 'YYYYMM'));
+    END LOOP;
+END $$;
+
+-- Entregas de eventos já arquivados ou de repositórios removidos ficam de fora
+INSERT INTO event_deliveries (delivery_id, repository_id, created_at)
+SELECT delivery_id, repository_id, created_at FROM events;
+
+DROP TABLE event_deliveries_unpartitioned;
+
+CREATE OR REPLACE FUNCTION register_event_delivery() RETURNS TRIGGER AS $$
+BEGIN
+    -- Espaço de chaves (int, int) separado dos locks bigint do PartitionMaintenanceService
+    PERFORM pg_advisory_xact_lock(1684368496, hashtext(NEW.delivery_id));
+    IF EXISTS (SELECT 1 FROM event_deliveries WHERE delivery_id = NEW.delivery_id) THEN
+        RAISE EXCEPTION 'duplicate key value violates unique constraint "pk_event_deliveries"'
+            USING ERRCODE = 'unique_violation', DETAIL = format('Key (delivery_id)=(%s) already exists.', NEW.delivery_id);
+    END IF;
+    INSERT INTO event_deliveries (delivery_id, repository_id, created_at) VALUES (NEW.delivery_id, NEW.repository_id, NEW.created_at);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,45 @@
+-- event_files passa a ser particionada por mês em created_at (mesmo instante do evento), como events e event_deliveries,
+-- e o PartitionMaintenanceService expira as três juntas com DROP/DETACH de partição em vez de DELETE em massa.
+-- A chave de partição precisa estar na PK, que passa a ser (path_id, event_id, created_at).
+SET LOCAL TimeZone = 'UTC';
+
+ALTER TABLE event_files RENAME TO event_files_unpartitioned;
+ALTER TABLE event_files_unpartitioned RENAME CONSTRAINT pk_event_files TO pk_event_files_unpartitioned;
+ALTER TABLE event_files_unpartitioned RENAME CONSTRAINT fk_event_files_path TO fk_event_files_path_unpartitioned;
+ALTER TABLE event_files_unpartitioned RENAME CONSTRAINT fk_event_files_repository TO fk_event_files_repository_unpartitioned;
+DROP INDEX IF EXISTS idx_event_files_path_repository_date;
+DROP INDEX IF EXISTS idx_event_files_created_at;
+
+CREATE TABLE event_files (
+    path_id BIGINT NOT NULL,
+    repository_id UUID NOT NULL,
+    event_id UUID NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    contributor_id UUID,
+    change_type CHAR(1) NOT NULL,
+    CONSTRAINT pk_event_files PRIMARY KEY (path_id, event_id, created_at),
+    CONSTRAINT fk_event_files_path FOREIGN KEY (path_id) REFERENCES file_paths(id),
+    CONSTRAINT fk_event_files_repository FOREIGN KEY (repository_id) REFERENCES repositories(id) ON DELETE CASCADE
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE event_files_default PARTITION OF event_files DEFAULT;
+
+-- Mesmos meses das partições de events
+DO $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'events'::regclass AND c.relname ~ '^events_p[0-9]{6}$'
+    LOOP
+        PERFORM create_monthly_partition('event_files', to_date(substr(partition_name, 9), 'YYYYMM'));
+    END LOOP;
+END $$;
+
+INSERT INTO event_files (path_id, repository_id, event_id, created_at, contributor_id, change_type)
+SELECT path_id, repository_id, event_id, created_at, contributor_id, change_type FROM event_files_unpartitioned;
+
+DROP TABLE event_files_unpartitioned;
+
+CREATE INDEX IF NOT EXISTS idx_event_files_path_repository_date ON event_files (path_id, repository_id, created_at DESC) INCLUDE (contributor_id);
@@ -0,0 +1,20 @@
+-- Os contadores de hotspots passam a ser alimentados por event_files em todos os nós, não só no nó que recebeu o push.
+-- ingest_xid é o id da transação que gravou a linha: cada nó lê as linhas com ingest_xid entre a sua marca e o
+-- xmin do snapshot atual (todas as transações abaixo dele já terminaram), então cada push conta uma única vez,
+-- mesmo quando uma transação mais antiga comita depois de uma mais nova. Linhas anteriores a esta migração ficam nulas.
+ALTER TABLE event_files ADD COLUMN IF NOT EXISTS ingest_xid xid8;
+ALTER TABLE event_files ALTER COLUMN ingest_xid SET DEFAULT pg_current_xact_id();
+CREATE INDEX IF NOT EXISTS idx_event_files_ingest_xid ON event_files (ingest_xid);
+
+-- Um único nó grava os snapshots por vez (node_id); xid_watermark é a marca até onde os contadores gravados
+-- contam event_files. Outro nó assume quando snapshot_at fica velho.
+CREATE TABLE IF NOT EXISTS hotspot_state (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    node_id VARCHAR(64),
+    xid_watermark xid8,
+    snapshot_at TIMESTAMP WITH TIME ZONE
+);
+INSERT INTO hotspot_state (id) VALUES (1) ON CONFLICT DO NOTHING;
+
+-- Snapshots antigos não têm marca: os contadores são reconstruídos de event_files na próxima inicialização
+TRUNCATE hotspot_snapshots;
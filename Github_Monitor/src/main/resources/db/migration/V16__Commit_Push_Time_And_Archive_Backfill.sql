@@ -0,0 +1,19 @@
+-- commits.pushed_at: quando o commit chegou pela primeira vez (created_at do push que o trouxe). committed_at é a data
+-- do autor, que fica no passado em rebase/cherry-pick, então as contagens por período passam a usar pushed_at.
+SET LOCAL TimeZone = 'UTC';
+
+ALTER TABLE commits ADD COLUMN IF NOT EXISTS pushed_at TIMESTAMP WITH TIME ZONE;
+UPDATE commits c SET pushed_at = e.created_at FROM events e WHERE e.id = c.event_id;
+-- Push já arquivado ou expirado: a data do autor é a melhor aproximação; o backfill do arquivo corrige os arquivados
+UPDATE commits SET pushed_at = committed_at WHERE pushed_at IS NULL;
+ALTER TABLE commits ALTER COLUMN pushed_at SET NOT NULL;
+
+DROP INDEX IF EXISTS idx_commits_repository_time_author;
+CREATE INDEX IF NOT EXISTS idx_commits_repository_pushed_author ON commits (repository_id, pushed_at, author);
+
+-- As cargas iniciais de V9 (commits), V10 (event_files) e V12 (pull_request_state) só leram a tabela events.
+-- Meses arquivados antes delas ficam com backfilled_at nulo e o ArchiveBackfillService os relê dos segmentos;
+-- meses arquivados daqui em diante já têm as linhas derivadas, gravadas na ingestão.
+-- backfill_claimed_until é o lease do nó que está processando o mês.
+ALTER TABLE archived_event_months ADD COLUMN IF NOT EXISTS backfilled_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE archived_event_months ADD COLUMN IF NOT EXISTS backfill_claimed_until TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,12 @@
+-- Contagem de eventos arquivados por repositório e tipo, para o resumo do dashboard somar o arquivo frio sem ler os
+-- segmentos. Gravada na mesma transação que esvazia a partição, então cada evento é contado em uma camada só.
+CREATE TABLE IF NOT EXISTS archived_event_counts (
+    month DATE NOT NULL REFERENCES archived_event_months(month) ON DELETE CASCADE,
+    repository_id UUID NOT NULL REFERENCES repositories(id) ON DELETE CASCADE,
+    type VARCHAR(20) NOT NULL,
+    event_count BIGINT NOT NULL,
+    CONSTRAINT pk_archived_event_counts PRIMARY KEY (month, repository_id, type)
+);
+
+-- Meses arquivados antes desta versão ficam com counted_at nulo e o EventArchiveService os conta a partir dos segmentos
+ALTER TABLE archived_event_months ADD COLUMN IF NOT EXISTS counted_at TIMESTAMP WITH TIME ZONE;
@@ -0,0 +1,2 @@
+-- Ids dos frames SSE, os mesmos em todos os nós: o cliente retoma com Last-Event-ID em qualquer nó.
+CREATE SEQUENCE IF NOT EXISTS sse_frame_seq;
@@ -0,0 +1,2 @@
+-- Limpeza das notificações entregues ou que falharam definitivamente (app.notifications.retention-days).
+CREATE INDEX IF NOT EXISTS idx_notifications_finished_created_at ON notifications(created_at) WHERE status IN ('SENT', 'FAILED');
@@ -0,0 +1,9 @@
+-- Frames SSE grandes demais para o payload do NOTIFY (limite de 8000 bytes).
+-- O NOTIFY carrega apenas a referência (id) e os outros nós buscam o conteúdo aqui.
+CREATE TABLE IF NOT EXISTS sse_frames (
+    id BIGSERIAL PRIMARY KEY,
+    type VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_sse_frames_created_at ON sse_frames(created_at);
@@ -0,0 +1,9 @@
+-- Baldes de rate limit compartilhados entre os nós da API (app.rate-limit.backend=postgres).
+-- UNLOGGED: estado efêmero, não precisa passar pelo WAL nem sobreviver a um crash.
+CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_buckets (
+    bucket_key VARCHAR(255) PRIMARY KEY,
+    tokens DOUBLE PRECISION NOT NULL,
+    allowed BOOLEAN NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_rate_limit_buckets_updated_at ON rate_limit_buckets(updated_at);
@@ -0,0 +1,14 @@
+-- Fila de entrega de notificações: uma linha por notificação e canal (TRAY, WEBHOOK, EMAIL).
+-- Notificações de eventos não têm alerta, por isso alert_id passa a aceitar NULL.
+ALTER TABLE notifications ALTER COLUMN alert_id DROP NOT NULL;
+ALTER TABLE notifications ALTER COLUMN status SET NOT NULL;
+
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS event_id UUID;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS title VARCHAR(255);
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS message TEXT;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS last_error TEXT;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP;
+
+-- Busca das notificações pendentes ou com retentativa vencida
+CREATE INDEX IF NOT EXISTS idx_notifications_status_next_attempt ON notifications(status, next_attempt_at);
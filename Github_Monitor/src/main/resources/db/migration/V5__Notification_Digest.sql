@@ -0,0 +1,13 @@
+-- Agrupamento (digest) de notificações por canal e repositório.
+-- category: tipo do evento ou "ALERT <regra>"; priority: severidade do alerta (CRITICAL ignora o digest e o limite do canal).
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS repository_id UUID;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS repository_name VARCHAR(255);
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS category VARCHAR(100);
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS author VARCHAR(255);
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS priority VARCHAR(20);
+-- Lote reivindicado por um worker; digest_id aponta para a notificação que representou o resumo enviado
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS claim_id UUID;
+ALTER TABLE notifications ADD COLUMN IF NOT EXISTS digest_id UUID;
+
+CREATE INDEX IF NOT EXISTS idx_notifications_digest_group ON notifications(type, repository_id, status, next_attempt_at);
+CREATE INDEX IF NOT EXISTS idx_notifications_claim_id ON notifications(claim_id);
@@ -0,0 +1,9 @@
+-- Índices para a paginação por keyset do log de auditoria: (created_at, id) em ordem decrescente,
+-- com e sem os filtros de usuário, ação e recurso como prefixo
+CREATE INDEX IF NOT EXISTS idx_audit_logs_created_id ON audit_logs (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_user_created_id ON audit_logs (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_action_created_id ON audit_logs (action, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_resource_created_id ON audit_logs (resource, created_at DESC, id DESC);
+
+-- Substituído por idx_audit_logs_created_id
+DROP INDEX IF EXISTS idx_audit_logs_created_at;
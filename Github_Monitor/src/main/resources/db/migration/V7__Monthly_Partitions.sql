@@ -0,0 +1,125 @@
+-- Particionamento mensal (RANGE em created_at) de events e audit_logs.
+-- Partições: <tabela>_pYYYYMM, limites em UTC. Uma partição default recebe o que cair fora das partições criadas.
+-- O PartitionMaintenanceService cria as partições futuras e desanexa/remove as expiradas conforme a retenção.
+SET LOCAL TimeZone = 'UTC';
+
+-- Cria (se não existir) a partição mensal que contém month_start e devolve o nome dela
+CREATE OR REPLACE FUNCTION create_monthly_partition(parent_table TEXT, month_start DATE) RETURNS TEXT AS $$
+DECLARE
+    first_day DATE := date_trunc('month', month_start)::date;
+    partition_name TEXT := parent_table || '_p' || to_char(first_day, 'YYYYMM');
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+        partition_name, parent_table,
+        first_day::timestamp AT TIME ZONE 'UTC',
+        (first_day + INTERVAL '1 month')::timestamp AT TIME ZONE 'UTC');
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 1. Eventos
+-- Tabelas particionadas só aceitam PK/UNIQUE que incluam a chave de partição, então:
+--  * a PK passa a ser (id, created_at);
+--  * a unicidade global de delivery_id vai para event_deliveries, alimentada por trigger;
+--  * alerts.event_id deixa de ter FK (o gerenciador de partições limpa as referências antes de remover uma partição).
+ALTER TABLE alerts DROP CONSTRAINT IF EXISTS fk_alerts_event;
+
+ALTER TABLE events RENAME TO events_unpartitioned;
+
+CREATE TABLE events (
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
+    repository_id UUID NOT NULL,
+    contributor_id UUID,
+    type VARCHAR(20) NOT NULL,
+    delivery_id VARCHAR(255) NOT NULL,
+    payload JSONB,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_events_repository_p FOREIGN KEY (repository_id) REFERENCES repositories(id) ON DELETE CASCADE,
+    CONSTRAINT fk_events_contributor_p FOREIGN KEY (contributor_id) REFERENCES contributors(id) ON DELETE SET NULL
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE events_default PARTITION OF events DEFAULT;
+
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(created_at), now()))::date INTO month_start FROM events_unpartitioned;
+    WHILE month_start <= date_trunc('month', now() + INTERVAL '3 months')::date LOOP
+        PERFORM create_monthly_partition('events', month_start);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO events (id, repository_id, contributor_id, type, delivery_id, payload, created_at)
+SELECT id, repository_id, contributor_id, type, delivery_id, payload, COALESCE(created_at, now())
+FROM events_unpartitioned;
+
+CREATE TABLE IF NOT EXISTS event_deliveries (
+    delivery_id VARCHAR(255) PRIMARY KEY,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+INSERT INTO event_deliveries (delivery_id, created_at)
+SELECT delivery_id, created_at FROM events ON CONFLICT DO NOTHING;
+CREATE INDEX IF NOT EXISTS idx_event_deliveries_created_at ON event_deliveries(created_at);
+
+DROP TABLE events_unpartitioned;
+
+ALTER TABLE events RENAME CONSTRAINT fk_events_repository_p TO fk_events_repository;
+ALTER TABLE events RENAME CONSTRAINT fk_events_contributor_p TO fk_events_contributor;
+ALTER TABLE events ADD CONSTRAINT events_pkey PRIMARY KEY (id, created_at);
+CREATE INDEX IF NOT EXISTS idx_events_repository_date ON events(repository_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_events_type ON events(type);
+CREATE INDEX IF NOT EXISTS idx_events_delivery_id ON events(delivery_id);
+
+-- Um delivery_id repetido viola a PK de event_deliveries e aborta o INSERT, como fazia o antigo UNIQUE
+CREATE OR REPLACE FUNCTION register_event_delivery() RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO event_deliveries (delivery_id, created_at) VALUES (NEW.delivery_id, NEW.created_at);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_events_register_delivery
+    AFTER INSERT ON events
+    FOR EACH ROW EXECUTE FUNCTION register_event_delivery();
+
+-- 2. Logs de auditoria
+ALTER TABLE audit_logs RENAME TO audit_logs_unpartitioned;
+
+CREATE TABLE audit_logs (
+    id UUID NOT NULL DEFAULT uuid_generate_v4(),
+    user_id UUID,
+    action VARCHAR(255) NOT NULL,
+    resource VARCHAR(255) NOT NULL,
+    details JSONB,
+    anonymous BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_audit_logs_user_p FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE SET NULL
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE audit_logs_default PARTITION OF audit_logs DEFAULT;
+
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(created_at), now()))::date INTO month_start FROM audit_logs_unpartitioned;
+    WHILE month_start <= date_trunc('month', now() + INTERVAL '3 months')::date LOOP
+        PERFORM create_monthly_partition('audit_logs', month_start);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO audit_logs (id, user_id, action, resource, details, anonymous, created_at)
+SELECT id, user_id, action, resource, details, anonymous, COALESCE(created_at, now())
+FROM audit_logs_unpartitioned;
+
+DROP TABLE audit_logs_unpartitioned;
+
+ALTER TABLE audit_logs RENAME CONSTRAINT fk_audit_logs_user_p TO fk_audit_logs_user;
+ALTER TABLE audit_logs ADD CONSTRAINT audit_logs_pkey PRIMARY KEY (id, created_at);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_created_id ON audit_logs (created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_user_created_id ON audit_logs (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_action_created_id ON audit_logs (action, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_audit_logs_resource_created_id ON audit_logs (resource, created_at DESC, id DESC);
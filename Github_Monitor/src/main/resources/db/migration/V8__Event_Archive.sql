@@ -0,0 +1,7 @@
+-- Meses de eventos movidos para o arquivo frio (segmentos comprimidos em app.archive.dir).
+-- A linha é inserida na mesma transação que esvazia a partição, então um evento nunca aparece nas duas camadas.
+CREATE TABLE IF NOT EXISTS archived_event_months (
+    month DATE PRIMARY KEY,
+    event_count BIGINT NOT NULL,
+    archived_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,34 @@
+-- Tabela fato de commits extraída de payload.commits dos eventos PUSH.
+-- Um commit é único por (repositório, sha): force-pushes e o mesmo commit em outro branch não contam de novo.
+CREATE TABLE IF NOT EXISTS commits (
+    repository_id UUID NOT NULL,
+    sha VARCHAR(64) NOT NULL,
+    author VARCHAR(255), -- author.username (login no GitHub) ou author.name
+    author_email VARCHAR(255),
+    committed_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    files_added INTEGER NOT NULL DEFAULT 0,
+    files_modified INTEGER NOT NULL DEFAULT 0,
+    files_removed INTEGER NOT NULL DEFAULT 0,
+    event_id UUID, -- push que trouxe o commit pela primeira vez
+    CONSTRAINT pk_commits PRIMARY KEY (repository_id, sha),
+    CONSTRAINT fk_commits_repository FOREIGN KEY (repository_id) REFERENCES repositories(id) ON DELETE CASCADE
+);
+-- Contagens e ranking de autores por período respondidos só com o índice
+CREATE INDEX IF NOT EXISTS idx_commits_repository_time_author ON commits (repository_id, committed_at, author);
+
+-- Carga inicial a partir dos pushes já armazenados (payloads comprimidos {"$z": ...} não têm commits legíveis aqui)
+INSERT INTO commits (repository_id, sha, author, author_email, committed_at, files_added, files_modified, files_removed, event_id)
+SELECT e.repository_id,
+       c->>'id',
+       COALESCE(NULLIF(c->'author'->>'username', ''), c->'author'->>'name'),
+       c->'author'->>'email',
+       COALESCE((c->>'timestamp')::timestamptz, e.created_at),
+       CASE WHEN jsonb_typeof(c->'added') = 'array' THEN jsonb_array_length(c->'added') ELSE 0 END,
+       CASE WHEN jsonb_typeof(c->'modified') = 'array' THEN jsonb_array_length(c->'modified') ELSE 0 END,
+       CASE WHEN jsonb_typeof(c->'removed') = 'array' THEN jsonb_array_length(c->'removed') ELSE 0 END,
+       e.id
+FROM events e
+CROSS JOIN LATERAL jsonb_array_elements(CASE WHEN jsonb_typeof(e.payload->'commits') = 'array' THEN e.payload->'commits' ELSE '[]'::jsonb END) c
+WHERE e.type = 'PUSH' AND c->>'id' IS NOT NULL
+ORDER BY e.created_at
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,348 @@
+package com.githubmonitor.api.controller;
+
+import com.githubmonitor.api.config.AsyncConfig;
+import com.githubmonitor.api.service.DataExportService;
+import com.githubmonitor.api.service.EventService;
+import com.githubmonitor.api.service.SseService;
+import com.githubmonitor.api.service.impl.LocalSseBroadcastBusImpl;
+import com.githubmonitor.api.service.impl.SseServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Sinks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Soak run of GET /api/events/stream/reactive over real HTTP connections: the endpoint is served by the
+ * application's EventController, SseServiceImpl and AsyncConfig on Spring MVC and embedded Tomcat, and the
+ * clients are raw sockets in a separate JVM (so they neither share the file descriptor limit nor the heap).
+ * Reports the server heap retained per open connection and the time from publishing a frame until each client
+ * has read it, first with every client reading and then with a few clients that stop reading.
+ * Security filters and the database are not part of this context.
+ * Off by default, run with
+ * {@code mvn -B test -Dtest=EventStreamSoakTest -Dsoak=true [-Dsoak.connections=10000 -Dsoak.broadcasts=200 -Dsoak.slow=16]}.
+ */
+@EnabledIfSystemProperty(named = "soak", matches = "true")
+class EventStreamSoakTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EventStreamSoakTest.class);
+    private static final String PATH = "/api/events/stream/reactive";
+
+    private final int connections = Integer.getInteger("soak.connections", 10_000);
+    private final int broadcasts = Integer.getInteger("soak.broadcasts", 200);
+    private final int slowClients = Integer.getInteger("soak.slow", 16);
+
+    private ConfigurableApplicationContext context;
+    private SseService sseService;
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        context = new SpringApplicationBuilder(StreamApplication.class)
+                .run("--server.port=0",
+                        "--server.tomcat.max-connections=" + (connections + 1000),
+                        "--server.tomcat.accept-count=1000",
+                        "--spring.mvc.async.request-timeout=3600000",
+                        "--spring.main.banner-mode=off");
+        sseService = context.getBean(SseService.class);
+        port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void tenThousandConnections() throws Exception {
+        long baseline = usedHeapAfterGc();
+        try (ClientProcess clients = ClientProcess.start(port, connections, 0, broadcasts)) {
+            clients.awaitLine("READY");
+            awaitSubscribers(connections);
+            long perConnection = (usedHeapAfterGc() - baseline) / connections;
+            log.info("Stream soak: {} connections, {} bytes of server heap per connection", connections, perConnection);
+
+            publish(broadcasts, 200);
+            String result = clients.awaitLine("RESULT");
+            log.info("Stream soak, all clients reading: {}", result);
+            assertThat(result).contains("complete=" + connections);
+        }
+    }
+
+    @Test
+    void clientsThatStopReading() throws Exception {
+        // Large frames fill the socket buffers of the stalled clients; "complete" counts the reading ones that still got everything
+        int reading = Math.min(200, connections);
+        try (ClientProcess clients = ClientProcess.start(port, reading, slowClients, broadcasts)) {
+            clients.awaitLine("READY");
+            awaitSubscribers(reading + slowClients);
+            publish(broadcasts, 64 * 1024);
+            log.info("Stream soak, {} reading and {} stalled clients: {}", reading, slowClients, clients.awaitLine("RESULT"));
+        }
+    }
+
+    // The response headers only go out with the first frame, so the server side is the one that knows all streams are open
+    private void awaitSubscribers(int count) throws InterruptedException {
+        Sinks.Many<?> sink = (Sinks.Many<?>) ReflectionTestUtils.getField(sseService, "reactiveSink");
+        long deadline = System.currentTimeMillis() + 120_000;
+        while (sink.currentSubscriberCount() < count) {
+            assertThat(System.currentTimeMillis()).as("streams open").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+
+    private void publish(int count, int padding) throws InterruptedException {
+        String pad = "x".repeat(padding);
+        for (int i = 0; i < count; i++) {
+            sseService.sendUpdate("event-update", Map.of("n", i, "publishedAt", nowMicros(), "pad", pad));
+            Thread.sleep(10);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    static long nowMicros() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+
+    @SpringBootConfiguration
+    @ImportAutoConfiguration({ServletWebServerFactoryAutoConfiguration.class, EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+            DispatcherServletAutoConfiguration.class,
+            WebMvcAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class, JacksonAutoConfiguration.class,
+            TaskExecutionAutoConfiguration.class})
+    @Import({AsyncConfig.class, EventController.class, SseServiceImpl.class, LocalSseBroadcastBusImpl.class})
+    static class StreamApplication {
+
+        @Bean
+        EventService eventService() {
+            return mock(EventService.class);
+        }
+
+        @Bean
+        DataExportService dataExportService() {
+            return mock(DataExportService.class);
+        }
+    }
+
+    // The client JVM: reports READY once every request is sent, RESULT when every reading client has all frames or went idle
+    private static final class ClientProcess implements AutoCloseable {
+        private final Process process;
+        private final BufferedReader output;
+
+        private ClientProcess(Process process) {
+            this.process = process;
+            this.output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        static ClientProcess start(int port, int reading, int stalled, int expected) throws IOException {
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), Client.class.getName(),
+                    String.valueOf(port), String.valueOf(reading), String.valueOf(stalled), String.valueOf(expected))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            return new ClientProcess(process);
+        }
+
+        String awaitLine(String prefix) throws IOException {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (line.startsWith(prefix)) {
+                    return line;
+                }
+            }
+            throw new IllegalStateException("Client process exited before " + prefix);
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            process.destroy();
+            process.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public static final class Client {
+
+        private static final long IDLE_TIMEOUT_MS = 120_000;
+
+        public static void main(String[] args) throws Exception {
+            int port = Integer.parseInt(args[0]);
+            int reading = Integer.parseInt(args[1]);
+            int stalled = Integer.parseInt(args[2]);
+            int expected = Integer.parseInt(args[3]);
+            byte[] request = ("GET " + PATH + " HTTP/1.0\r\nHost: localhost\r\nAccept: text/event-stream\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+
+            // Never read from: the server's writes to them block once their socket buffers are full
+            List<SocketChannel> stalledChannels = new ArrayList<>();
+            for (int i = 0; i < stalled; i++) {
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+                channel.socket().setReceiveBufferSize(4096);
+                channel.write(ByteBuffer.wrap(request));
+                stalledChannels.add(channel);
+            }
+
+            Selector selector = Selector.open();
+            for (int i = 0; i < reading; i++) {
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+                channel.write(ByteBuffer.wrap(request));
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, new Connection(expected));
+                if ((i + 1) % 1000 == 0) {
+                    System.err.println("connected " + (i + 1));
+                }
+            }
+
+            long[] fanOut = new long[expected];
+            List<Long> latencies = new ArrayList<>(reading * expected);
+            ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+            int complete = 0;
+            System.out.println("READY");
+            System.out.flush();
+            long lastProgress = System.currentTimeMillis();
+            while (complete < reading && System.currentTimeMillis() - lastProgress < IDLE_TIMEOUT_MS) {
+                if (selector.select(100) == 0) {
+                    continue;
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Connection connection = (Connection) key.attachment();
+                    buffer.clear();
+                    int read = ((SocketChannel) key.channel()).read(buffer);
+                    if (read < 0) {
+                        key.cancel();
+                        continue;
+                    }
+                    lastProgress = System.currentTimeMillis();
+                    int before = connection.received;
+                    connection.append(new String(buffer.array(), 0, read, StandardCharsets.ISO_8859_1), fanOut, latencies);
+                    if (before < expected && connection.received >= expected) {
+                        complete++;
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+
+            long[] sortedLatencies = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            long[] sortedFanOut = fanOut.clone();
+            Arrays.sort(sortedFanOut);
+            System.out.printf("RESULT connections=%d stalled=%d complete=%d deliveries=%d/%d latency p50=%.1fms p99=%.1fms max=%.1fms"
+                            + " fan-out p50=%.1fms p99=%.1fms max=%.1fms%n",
+                    reading, stalled, complete, sortedLatencies.length, (long) reading * expected,
+                    millis(percentile(sortedLatencies, 50)), millis(percentile(sortedLatencies, 99)), millis(last(sortedLatencies)),
+                    millis(percentile(sortedFanOut, 50)), millis(percentile(sortedFanOut, 99)), millis(last(sortedFanOut)));
+            System.out.flush();
+            for (SocketChannel channel : stalledChannels) {
+                channel.close();
+            }
+        }
+
+        private static long percentile(long[] sorted, int percentile) {
+            return sorted.length == 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) ((long) sorted.length * percentile / 100))];
+        }
+
+        private static long last(long[] sorted) {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    // HTTP/1.0 keeps the body unchunked, so frames can be cut on the blank line that ends each one
+    private static final class Connection {
+        private final int expected;
+        private final StringBuilder pending = new StringBuilder();
+        private boolean headers;
+        private int received;
+
+        Connection(int expected) {
+            this.expected = expected;
+        }
+
+        void append(String chunk, long[] fanOut, List<Long> latencies) {
+            long now = nowMicros();
+            pending.append(chunk);
+            if (!headers) {
+                int end = pending.indexOf("\r\n\r\n");
+                if (end < 0) {
+                    return;
+                }
+                headers = true;
+                pending.delete(0, end + 4);
+            }
+            int end;
+            while ((end = pending.indexOf("\n\n")) >= 0) {
+                String frame = pending.substring(0, end);
+                pending.delete(0, end + 2);
+                long publishedAt = field(frame, "\"publishedAt\":");
+                long n = field(frame, "\"n\":");
+                if (publishedAt < 0 || n < 0 || n >= expected) {
+                    continue;
+                }
+                long latency = now - publishedAt;
+                latencies.add(latency);
+                fanOut[(int) n] = Math.max(fanOut[(int) n], latency);
+                received++;
+            }
+        }
+
+        private static long field(String frame, String name) {
+            int start = frame.indexOf(name);
+            if (start < 0) {
+                return -1;
+            }
+            start += name.length();
+            int end = start;
+            while (end < frame.length() && Character.isDigit(frame.charAt(end))) {
+                end++;
+            }
+            return end > start ? Long.parseLong(frame.substring(start, end)) : -1;
+        }
+    }
+}
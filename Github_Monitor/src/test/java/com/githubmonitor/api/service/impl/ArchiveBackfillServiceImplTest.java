@@ -0,0 +1,142 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.repository.RepositoryRepository;
+import com.githubmonitor.api.service.DashboardSummaryService;
+import com.githubmonitor.api.service.EventPayloadCodec;
+import com.githubmonitor.api.support.PostgresTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArchiveBackfillServiceImplTest {
+
+    private final YearMonth archivedMonth = YearMonth.now(ZoneOffset.UTC).minusMonths(6);
+    private final LocalDateTime pushedAt = archivedMonth.atDay(10).atTime(LocalTime.NOON);
+
+    @TempDir
+    Path directory;
+
+    private PostgresTestDatabase database;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+    private EventArchiveServiceImpl archive;
+    private ArchiveBackfillServiceImpl service;
+    private UUID repositoryId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = PostgresTestDatabase.create();
+        database.migrate(null);
+        jdbc = database.jdbcTemplate();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database.dataSource()));
+        jdbc.queryForObject("SELECT create_monthly_partition('events', ?::date)", String.class, archivedMonth.atDay(1).toString());
+        UUID userId = jdbc.queryForObject("INSERT INTO users (name, email, github_id, matricula) VALUES ('Test', 'test@test', 'gh', 'm') RETURNING id", UUID.class);
+        repositoryId = jdbc.queryForObject("INSERT INTO repositories (user_id, github_repo_id, name, owner, url) "
+                + "VALUES (?, 'owner/repo', 'repo', 'owner', 'https://github.com/owner/repo') RETURNING id", UUID.class, userId);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        EventPayloadCodec codec = mock(EventPayloadCodec.class);
+        when(codec.decode(anyString())).then(returnsFirstArg());
+        archive = new EventArchiveServiceImpl(jdbc, transactionTemplate, objectMapper, mock(DashboardSummaryService.class), codec);
+        ReflectionTestUtils.setField(archive, "enabled", true);
+        ReflectionTestUtils.setField(archive, "directoryPath", directory.toString());
+        ReflectionTestUtils.setField(archive, "afterDays", 90);
+        ReflectionTestUtils.setField(archive, "blockSize", 16);
+        ReflectionTestUtils.setField(archive, "cachedIndexes", 4);
+        ReflectionTestUtils.setField(archive, "fetchSize", 10);
+        archive.init();
+
+        FileIndexServiceImpl fileIndexService = new FileIndexServiceImpl(jdbc);
+        ReflectionTestUtils.setField(fileIndexService, "maxPathsPerPush", 100);
+        ReflectionTestUtils.setField(fileIndexService, "cachedPaths", 100);
+        fileIndexService.init();
+        service = new ArchiveBackfillServiceImpl(jdbc, transactionTemplate, archive, new CommitServiceImpl(jdbc), fileIndexService,
+                new PullRequestServiceImpl(jdbc, mock(RepositoryRepository.class)), objectMapper, Runnable::run);
+        ReflectionTestUtils.setField(service, "batchSize", 1);
+        ReflectionTestUtils.setField(service, "leaseMinutes", 15);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void monthArchivedBeforeTheDerivedTablesIsReplayed() {
+        UUID pushId = insertEvent("PUSH", """
+                {"commits": [{"id": "abc123", "timestamp": "2001-01-01T00:00:00Z", "author": {"username": "octocat"},
+                              "added": ["src/New.java"], "modified": [], "removed": []}]}""");
+        insertEvent("PULL_REQUEST", """
+                {"pull_request": {"number": 7, "state": "open", "title": "Fix", "user": {"login": "octocat"},
+                                  "created_at": "%sZ", "updated_at": "%sZ"}}""".formatted(pushedAt, pushedAt));
+        archive.archiveExpired();
+        // As if the month had been archived before V9, V10 and V12 ran
+        jdbc.update("DELETE FROM commits");
+        jdbc.update("DELETE FROM event_files");
+        jdbc.update("DELETE FROM pull_request_state");
+        jdbc.update("UPDATE archived_event_months SET backfilled_at = NULL");
+
+        service.backfill();
+
+        assertThat(jdbc.queryForObject("SELECT event_id FROM commits WHERE sha = 'abc123'", UUID.class)).isEqualTo(pushId);
+        assertThat(jdbc.queryForObject("SELECT pushed_at FROM commits WHERE sha = 'abc123'", Timestamp.class).toLocalDateTime()).isEqualTo(pushedAt);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM event_files WHERE event_id = ?", Long.class, pushId)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT state FROM pull_request_state WHERE pr_number = 7", String.class)).isEqualTo("OPEN");
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM archived_event_months WHERE backfilled_at IS NULL", Long.class)).isZero();
+    }
+
+    @Test
+    void replayCorrectsTheEstimatedPushTimeOfKnownCommits() {
+        UUID pushId = insertEvent("PUSH", """
+                {"commits": [{"id": "abc123", "timestamp": "2001-01-01T00:00:00Z", "author": {"name": "Octo"}}]}""");
+        archive.archiveExpired();
+        // V16 fell back to the author date for commits whose push was already archived
+        jdbc.update("INSERT INTO commits (repository_id, sha, author, committed_at, event_id, pushed_at) "
+                + "VALUES (?, 'abc123', 'Octo', '2001-01-01T00:00:00Z', ?, '2001-01-01T00:00:00Z')", repositoryId, pushId);
+        jdbc.update("UPDATE archived_event_months SET backfilled_at = NULL");
+
+        service.backfill();
+
+        assertThat(jdbc.queryForObject("SELECT pushed_at FROM commits WHERE sha = 'abc123'", Timestamp.class).toLocalDateTime()).isEqualTo(pushedAt);
+    }
+
+    @Test
+    void monthClaimedByAnotherNodeIsSkipped() {
+        insertEvent("PUSH", """
+                {"commits": [{"id": "abc123", "author": {"name": "Octo"}}]}""");
+        archive.archiveExpired();
+        jdbc.update("UPDATE archived_event_months SET backfilled_at = NULL, backfill_claimed_until = now() + interval '5 minutes'");
+
+        service.backfill();
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM archived_event_months WHERE backfilled_at IS NULL", Long.class)).isEqualTo(1);
+    }
+
+    private UUID insertEvent(String type, String payload) {
+        return jdbc.queryForObject("INSERT INTO events (repository_id, type, delivery_id, payload, created_at) "
+                        + "VALUES (?, ?, ?, ?::jsonb, ?) RETURNING id",
+                UUID.class, repositoryId, type, UUID.randomUUID().toString(), payload, pushedAt);
+    }
+}
@@ -0,0 +1,71 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.entity.User;
+import com.githubmonitor.api.support.PostgresTestDatabase;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class AuditLogServiceImplTest {
+
+    private PostgresTestDatabase database;
+    private JdbcTemplate jdbc;
+    private AuditLogServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        database = PostgresTestDatabase.create();
+        database.migrate(null);
+        jdbc = database.jdbcTemplate();
+
+        service = new AuditLogServiceImpl(jdbc, new ObjectMapper(), mock(EntityManager.class),
+                new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())));
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        ReflectionTestUtils.setField(service, "batchSize", 200);
+        ReflectionTestUtils.setField(service, "flushIntervalMs", 50L);
+        ReflectionTestUtils.setField(service, "overflowPolicy", AuditLogServiceImpl.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(service, "offerTimeoutMs", 50L);
+        ReflectionTestUtils.setField(service, "shutdownTimeoutMs", 10_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void entryOfADeletedUserDoesNotTakeTheBatchDown() {
+        UUID userId = jdbc.queryForObject("INSERT INTO users (name, email, github_id, matricula) VALUES ('Test', 'test@test', 'gh', 'm') RETURNING id", UUID.class);
+        User user = User.builder().id(userId).build();
+        User deleted = User.builder().id(UUID.randomUUID()).build();
+
+        service.start();
+        service.log(user, "LOGIN", "auth", Map.of());
+        service.log(deleted, "DELETE", "repository", Map.of());
+        service.log(user, "LOGOUT", "auth", Map.of());
+        service.stop();
+
+        assertThat(jdbc.queryForList("SELECT action FROM audit_logs WHERE user_id = ? ORDER BY created_at", String.class, userId))
+                .containsExactly("LOGIN", "LOGOUT");
+        // Like the entries of users deleted later: no user, but not anonymous
+        assertThat(jdbc.queryForMap("SELECT user_id, anonymous FROM audit_logs WHERE action = 'DELETE'"))
+                .containsEntry("user_id", null)
+                .containsEntry("anonymous", false);
+        assertThat(((AtomicLong) ReflectionTestUtils.getField(service, "dropped")).get()).isZero();
+    }
+}
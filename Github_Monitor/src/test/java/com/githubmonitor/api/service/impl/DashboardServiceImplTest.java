@@ -0,0 +1,62 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.dto.EventDTO;
+import com.githubmonitor.api.dto.ExportRequestDTO;
+import com.githubmonitor.api.service.AlertService;
+import com.githubmonitor.api.service.DashboardSummaryService;
+import com.githubmonitor.api.service.EventService;
+import com.githubmonitor.api.service.RepositoryService;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class DashboardServiceImplTest {
+
+    @Test
+    void rowsPastTheSheetLimitContinueOnANewSheetWithTheHeader() throws Exception {
+        EventService eventService = mock(EventService.class);
+        doAnswer(invocation -> {
+            Consumer<EventDTO> consumer = invocation.getArgument(4);
+            for (int i = 0; i < 7; i++) {
+                consumer.accept(EventDTO.builder().id(UUID.randomUUID()).actor("user" + i).build());
+            }
+            return null;
+        }).when(eventService).forEach(isNull(), isNull(), isNull(), isNull(), any());
+        DashboardServiceImpl service = new DashboardServiceImpl(mock(RepositoryService.class), eventService,
+                mock(AlertService.class), mock(DashboardSummaryService.class));
+        ReflectionTestUtils.setField(service, "maxDataRows", 3);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<Long> progress = new ArrayList<>();
+        service.writeExcelReport(ExportRequestDTO.builder().sheets(Set.of(ExportRequestDTO.Sheet.EVENTS)).build(), out, progress::add);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(3);
+            assertThat(actors(workbook.getSheet("Events"))).containsExactly("User", "user0", "user1", "user2");
+            assertThat(actors(workbook.getSheet("Events (2)"))).containsExactly("User", "user3", "user4", "user5");
+            assertThat(actors(workbook.getSheet("Events (3)"))).containsExactly("User", "user6");
+        }
+        assertThat(progress).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+    }
+
+    private static List<String> actors(Sheet sheet) {
+        List<String> actors = new ArrayList<>();
+        sheet.forEach(row -> actors.add(row.getCell(2).getStringCellValue()));
+        return actors;
+    }
+}
@@ -0,0 +1,106 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.dto.DiffFileDTO;
+import com.githubmonitor.api.service.DiffCacheService.CachedDiff;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+class DiffCacheServiceImplTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void revalidationMovesTheTimestampWithoutRewritingTheFile() throws IOException {
+        DiffCacheServiceImpl cache = cache(new ObjectMapper());
+        cache.put("commit/a", diff(1_000_000));
+        Path file = single(directory);
+        byte[] content = Files.readAllBytes(file);
+
+        cache.touch("commit/a", 2_000_000);
+
+        assertThat(Files.readAllBytes(file)).isEqualTo(content);
+        assertThat(cache.get("commit/a").fetchedAt()).isEqualTo(2_000_000);
+        // A fresh node reads it from disk
+        assertThat(cache(new ObjectMapper()).get("commit/a").fetchedAt()).isEqualTo(2_000_000);
+    }
+
+    @Test
+    void failedWriteLeavesNoTempFile() throws IOException {
+        ObjectMapper failing = spy(new ObjectMapper());
+        doThrow(new IOException("disk full")).when(failing).writeValue(any(OutputStream.class), any());
+        DiffCacheServiceImpl cache = cache(failing);
+
+        cache.put("commit/a", diff(System.currentTimeMillis()));
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+        // Still served from memory
+        assertThat(cache.get("commit/a")).isNotNull();
+    }
+
+    @Test
+    void evictionDropsExpiredFilesThenTheOldestPastTheSizeLimit() throws IOException {
+        DiffCacheServiceImpl cache = cache(new ObjectMapper());
+        long now = System.currentTimeMillis();
+        cache.put("expired", diff(now - TimeUnit.DAYS.toMillis(31)));
+        cache.put("oldest", diff(now - TimeUnit.HOURS.toMillis(3)));
+        cache.put("older", diff(now - TimeUnit.HOURS.toMillis(2)));
+        cache.put("newest", diff(now - TimeUnit.HOURS.toMillis(1)));
+        Path abandonedTemp = Files.createTempFile(directory, "diff", ".tmp");
+        Files.setLastModifiedTime(abandonedTemp, FileTime.fromMillis(now - TimeUnit.HOURS.toMillis(2)));
+        long entrySize;
+        try (Stream<Path> files = Files.walk(directory)) {
+            entrySize = files.filter(path -> path.toString().endsWith(".json.gz")).mapToLong(path -> path.toFile().length()).max().orElseThrow();
+        }
+        ReflectionTestUtils.setField(cache, "diskMaxBytes", 2 * entrySize);
+
+        cache.evict();
+
+        DiffCacheServiceImpl fresh = cache(new ObjectMapper());
+        assertThat(fresh.get("expired")).isNull();
+        assertThat(fresh.get("oldest")).isNull();
+        assertThat(fresh.get("older")).isNotNull();
+        assertThat(fresh.get("newest")).isNotNull();
+        assertThat(abandonedTemp).doesNotExist();
+    }
+
+    private DiffCacheServiceImpl cache(ObjectMapper objectMapper) {
+        DiffCacheServiceImpl cache = new DiffCacheServiceImpl(objectMapper);
+        ReflectionTestUtils.setField(cache, "directoryPath", directory.toString());
+        ReflectionTestUtils.setField(cache, "memoryEntries", 10);
+        ReflectionTestUtils.setField(cache, "diskMaxBytes", Long.MAX_VALUE);
+        ReflectionTestUtils.setField(cache, "diskMaxAgeDays", 30);
+        cache.init();
+        return cache;
+    }
+
+    private static CachedDiff diff(long fetchedAt) {
+        return new CachedDiff(List.of(DiffFileDTO.builder().filename("src/a.java").patch("@@ -1 +1 @@").build()), "\"etag\"", fetchedAt);
+    }
+
+    private static Path single(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> regular = files.filter(Files::isRegularFile).toList();
+            assertThat(regular).hasSize(1);
+            return regular.get(0);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.service.DashboardSummaryService;
+import com.githubmonitor.api.service.EventArchiveService;
+import com.githubmonitor.api.service.EventPayloadCodec;
+import com.githubmonitor.api.support.PostgresTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EventArchiveServiceImplTest {
+
+    private final YearMonth archivedMonth = YearMonth.now(ZoneOffset.UTC).minusMonths(6);
+
+    @TempDir
+    Path directory;
+
+    private PostgresTestDatabase database;
+    private JdbcTemplate jdbc;
+    private EventArchiveServiceImpl service;
+    private UUID first;
+    private UUID second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = PostgresTestDatabase.create();
+        database.migrate(null);
+        jdbc = database.jdbcTemplate();
+        jdbc.queryForObject("SELECT create_monthly_partition('events', ?::date)", String.class, archivedMonth.atDay(1).toString());
+        first = insertRepository();
+        second = insertRepository();
+
+        EventPayloadCodec codec = mock(EventPayloadCodec.class);
+        when(codec.decode(anyString())).then(returnsFirstArg());
+        service = new EventArchiveServiceImpl(jdbc, new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())),
+                new ObjectMapper().findAndRegisterModules(), mock(DashboardSummaryService.class), codec);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "directoryPath", directory.toString());
+        ReflectionTestUtils.setField(service, "afterDays", 90);
+        ReflectionTestUtils.setField(service, "blockSize", 1);
+        ReflectionTestUtils.setField(service, "cachedIndexes", 4);
+        ReflectionTestUtils.setField(service, "fetchSize", 10);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void archivedMonthIsReadInsteadOfTheTruncatedPartition() {
+        insertEvent(first, 3);
+        insertEvent(first, 10);
+        insertEvent(second, 5);
+
+        service.archiveExpired();
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM events", Long.class)).isZero();
+        assertThat(service.hasArchive(first)).isTrue();
+        assertThat(service.count(first, null, null, null)).isEqualTo(2);
+        assertThat(service.count(second, null, archivedMonth.atDay(4).atStartOfDay(), null)).isEqualTo(1);
+    }
+
+    @Test
+    void unscopedReadsMergeEveryRepositoryNewestFirst() {
+        insertEvent(first, 1);
+        insertEvent(second, 2);
+        insertEvent(first, 3);
+        insertEvent(second, 4);
+
+        service.archiveExpired();
+
+        assertThat(service.hasArchive(null)).isTrue();
+        assertThat(service.count(null, null, null, null)).isEqualTo(4);
+        assertThat(scanDays(0, 10)).containsExactly(4, 3, 2, 1);
+        assertThat(scanDays(1, 2)).containsExactly(3, 2);
+    }
+
+    @Test
+    void archivedEventsAreCountedPerRepositoryAndType() {
+        insertEvent(first, 3);
+        insertEvent(first, 10);
+        insertEvent(second, 5);
+
+        service.archiveExpired();
+
+        assertThat(archivedCount(first)).isEqualTo(2);
+        assertThat(archivedCount(second)).isEqualTo(1);
+    }
+
+    @Test
+    void monthArchivedBeforeTheCountsIsCountedFromItsSegments() {
+        insertEvent(first, 3);
+        insertEvent(second, 5);
+        service.archiveExpired();
+        jdbc.update("DELETE FROM archived_event_counts");
+        jdbc.update("UPDATE archived_event_months SET counted_at = NULL");
+
+        service.onStartup();
+
+        assertThat(archivedCount(first)).isEqualTo(1);
+        assertThat(archivedCount(second)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM archived_event_months WHERE counted_at IS NULL", Long.class)).isZero();
+    }
+
+    @Test
+    void monthStillBeingReadIsLeftForTheNextRun() throws Exception {
+        insertEvent(first, 3);
+        ReflectionTestUtils.setField(service, "lockTimeoutMs", 200L);
+        String partition = "events_p" + archivedMonth.format(DateTimeFormatter.ofPattern("yyyyMM"));
+
+        // An export cursor still open on the month
+        try (Connection reader = database.dataSource().getConnection()) {
+            reader.setAutoCommit(false);
+            try (Statement statement = reader.createStatement()) {
+                statement.executeQuery("SELECT * FROM " + partition).close();
+            }
+            service.archiveExpired();
+            reader.rollback();
+        }
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM events", Long.class)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM archived_event_months", Long.class)).isZero();
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+
+        service.archiveExpired();
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM events", Long.class)).isZero();
+        assertThat(service.count(first, null, null, null)).isEqualTo(1);
+    }
+
+    private long archivedCount(UUID repositoryId) {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(event_count), 0) FROM archived_event_counts WHERE repository_id = ? AND type = 'PUSH'",
+                Long.class, repositoryId);
+    }
+
+    private List<Integer> scanDays(long offset, int limit) {
+        List<Integer> days = new ArrayList<>();
+        service.scan(null, null, null, null, offset, (EventArchiveService.ArchivedEvent event) -> {
+            days.add(event.createdAt().getDayOfMonth());
+            return days.size() < limit;
+        });
+        return days;
+    }
+
+    private UUID insertRepository() {
+        UUID userId = jdbc.queryForObject("INSERT INTO users (name, email, github_id, matricula) VALUES ('Test', ?, ?, ?) RETURNING id",
+                UUID.class, UUID.randomUUID() + "@test", UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        return jdbc.queryForObject("INSERT INTO repositories (user_id, github_repo_id, name, owner, url) VALUES (?, ?, 'repo', 'owner', 'https://github.com/owner/repo') RETURNING id",
+                UUID.class, userId, "owner/" + UUID.randomUUID());
+    }
+
+    private void insertEvent(UUID repositoryId, int day) {
+        jdbc.update("INSERT INTO events (repository_id, type, delivery_id, payload, created_at) VALUES (?, 'PUSH', ?, '{}'::jsonb, ?)",
+                repositoryId, UUID.randomUUID().toString(), archivedMonth.atDay(day).atTime(LocalTime.NOON));
+    }
+}
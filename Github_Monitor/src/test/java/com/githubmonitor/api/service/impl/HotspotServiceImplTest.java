@@ -0,0 +1,171 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.dto.HotspotReportDTO;
+import com.githubmonitor.api.repository.RepositoryRepository;
+import com.githubmonitor.api.support.PostgresTestDatabase;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HotspotServiceImplTest {
+
+    private PostgresTestDatabase database;
+    private JdbcTemplate jdbc;
+    private UUID repositoryId;
+
+    @BeforeEach
+    void setUp() {
+        database = PostgresTestDatabase.create();
+        database.migrate(null);
+        jdbc = database.jdbcTemplate();
+        UUID userId = jdbc.queryForObject("INSERT INTO users (name, email, github_id, matricula) VALUES ('Test', 'test@test', 'gh', 'm') RETURNING id", UUID.class);
+        repositoryId = jdbc.queryForObject("INSERT INTO repositories (user_id, github_repo_id, name, owner, url) "
+                + "VALUES (?, 'owner/repo', 'repo', 'owner', 'https://github.com/owner/repo') RETURNING id", UUID.class, userId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void everyNodeCountsEveryPushOnce() {
+        HotspotServiceImpl first = node();
+        HotspotServiceImpl second = node();
+        first.poll();
+        second.poll();
+
+        push(jdbc, "src/a.java", "src/b.java");
+        push(jdbc, "src/a.java");
+        first.poll();
+        first.poll();
+        second.poll();
+
+        assertThat(files(first)).containsExactly(tuple("src/a.java", 2L), tuple("src/b.java", 1L));
+        assertThat(files(second)).isEqualTo(files(first));
+        assertThat(first.getHotspots(repositoryId, "1d", 10).getDirectories())
+                .extracting(HotspotReportDTO.Hotspot::getPath, HotspotReportDTO.Hotspot::getChanges)
+                .containsExactly(tuple("src/", 3L));
+    }
+
+    @Test
+    void pushCommittedAfterANewerOneIsStillCounted() throws Exception {
+        HotspotServiceImpl service = node();
+        service.poll();
+
+        try (Connection slow = database.dataSource().getConnection()) {
+            slow.setAutoCommit(false);
+            pushOn(slow, "src/slow.java");
+            push(jdbc, "src/fast.java");
+            service.poll();
+            // The fast push waits for the older open transaction
+            assertThat(files(service)).isEmpty();
+
+            slow.commit();
+        }
+        service.poll();
+
+        assertThat(files(service)).containsExactly(tuple("src/fast.java", 1L), tuple("src/slow.java", 1L));
+    }
+
+    @Test
+    void restartResumesFromTheSnapshotWithoutRecounting() {
+        push(jdbc, "src/a.java");
+        HotspotServiceImpl first = node();
+        first.poll();
+        push(jdbc, "src/a.java");
+        first.poll();
+        first.snapshot();
+        push(jdbc, "src/b.java");
+
+        HotspotServiceImpl restarted = node();
+        restarted.poll();
+
+        assertThat(files(restarted)).containsExactly(tuple("src/a.java", 2L), tuple("src/b.java", 1L));
+    }
+
+    @Test
+    void onlyOneNodeWritesSnapshots() {
+        push(jdbc, "src/a.java");
+        HotspotServiceImpl first = node();
+        HotspotServiceImpl second = node();
+        first.poll();
+        second.poll();
+
+        first.snapshot();
+        String writer = jdbc.queryForObject("SELECT node_id FROM hotspot_state", String.class);
+        push(jdbc, "src/b.java");
+        second.poll();
+        second.snapshot();
+
+        assertThat(jdbc.queryForObject("SELECT node_id FROM hotspot_state", String.class)).isEqualTo(writer);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM hotspot_snapshots WHERE counters::text LIKE '%b.java%'", Long.class)).isZero();
+
+        // The writer went quiet: the other node takes over and rewrites every day
+        jdbc.update("UPDATE hotspot_state SET snapshot_at = now() - interval '1 hour'");
+        second.snapshot();
+
+        assertThat(jdbc.queryForObject("SELECT node_id FROM hotspot_state", String.class)).isNotEqualTo(writer);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM hotspot_snapshots WHERE counters::text LIKE '%b.java%'", Long.class)).isEqualTo(1);
+    }
+
+    private HotspotServiceImpl node() {
+        RepositoryRepository repositoryRepository = mock(RepositoryRepository.class);
+        when(repositoryRepository.existsById(any())).thenReturn(true);
+        HotspotServiceImpl service = new HotspotServiceImpl(jdbc,
+                new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())), repositoryRepository, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "capacity", 10);
+        ReflectionTestUtils.setField(service, "maxWindowDays", 30);
+        ReflectionTestUtils.setField(service, "snapshotIntervalMs", 60000L);
+        return service;
+    }
+
+    private List<Tuple> files(HotspotServiceImpl service) {
+        return service.getHotspots(repositoryId, "1d", 10).getFiles().stream()
+                .map(hotspot -> tuple(hotspot.getPath(), hotspot.getChanges()))
+                .toList();
+    }
+
+    private void push(JdbcTemplate template, String... paths) {
+        template.execute((Connection connection) -> {
+            pushOn(connection, paths);
+            return null;
+        });
+    }
+
+    private void pushOn(Connection connection, String... paths) throws SQLException {
+        UUID eventId = UUID.randomUUID();
+        for (String path : paths) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "WITH p AS (INSERT INTO file_paths (path) VALUES (?) ON CONFLICT (path) DO UPDATE SET path = EXCLUDED.path RETURNING id) "
+                            + "INSERT INTO event_files (path_id, repository_id, event_id, created_at, change_type) SELECT id, ?, ?, ?, 'M' FROM p")) {
+                statement.setString(1, path);
+                statement.setObject(2, repositoryId);
+                statement.setObject(3, eventId);
+                statement.setObject(4, LocalDateTime.now());
+                statement.executeUpdate();
+            }
+        }
+    }
+}
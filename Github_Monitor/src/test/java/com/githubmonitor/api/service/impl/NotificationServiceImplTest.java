@@ -0,0 +1,60 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.repository.NotificationRepository;
+import com.githubmonitor.api.service.RateLimiter;
+import com.githubmonitor.api.support.PostgresTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class NotificationServiceImplTest {
+
+    private PostgresTestDatabase database;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        database = PostgresTestDatabase.create();
+        database.migrate(null);
+        jdbc = database.jdbcTemplate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void purgeDeletesOnlyFinishedNotificationsPastTheRetention() {
+        insert("old sent", "SENT", 40);
+        insert("old failed", "FAILED", 40);
+        insert("old pending", "PENDING", 40);
+        insert("old sending", "SENDING", 40);
+        insert("recent sent", "SENT", 5);
+        NotificationServiceImpl service = new NotificationServiceImpl(mock(NotificationRepository.class), jdbc, List.of(),
+                mock(RateLimiter.class), mock(Environment.class), Runnable::run);
+        ReflectionTestUtils.setField(service, "retentionDays", 30);
+        // Smaller than the number of expired rows, so the purge takes more than one batch
+        ReflectionTestUtils.setField(service, "retentionBatchSize", 1);
+
+        service.purgeExpired();
+
+        assertThat(jdbc.queryForList("SELECT title FROM notifications ORDER BY title", String.class))
+                .containsExactly("old pending", "old sending", "recent sent");
+    }
+
+    private void insert(String title, String status, int daysAgo) {
+        jdbc.update("INSERT INTO notifications (type, status, title, created_at) VALUES ('TRAY', ?, ?, now() - make_interval(days => ?))",
+                status, title, daysAgo);
+    }
+}
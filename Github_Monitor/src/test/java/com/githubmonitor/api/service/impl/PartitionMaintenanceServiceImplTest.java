@@ -0,0 +1,172 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.service.DashboardSummaryService;
+import com.githubmonitor.api.support.PostgresTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class PartitionMaintenanceServiceImplTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final YearMonth current = YearMonth.now(ZoneOffset.UTC);
+    private final YearMonth expiredMonth = current.minusMonths(5);
+
+    private PostgresTestDatabase database;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        database = PostgresTestDatabase.create();
+        jdbc = database.jdbcTemplate();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void partitioningMigrationKeepsRowsAndDeliveryUniqueness() {
+        database.migrate("6");
+        UUID repositoryId = insertRepository();
+        UUID oldEvent = insertEvent(repositoryId, "delivery-old", expiredMonth.atDay(10) + " 12:00:00+00");
+        insertEvent(repositoryId, "delivery-new", current.atDay(1) + " 12:00:00+00");
+        jdbc.update("INSERT INTO alerts (event_id, repository_id, rule_type, severity, message) VALUES (?, ?, 'TEST', 'INFO', 'old')",
+                oldEvent, repositoryId);
+
+        database.migrate(null);
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM events", Long.class)).isEqualTo(2);
+        assertThat(jdbc.queryForObject("SELECT tableoid::regclass::text FROM events WHERE id = ?", String.class, oldEvent))
+                .isEqualTo(partition("events", expiredMonth));
+        assertThat(jdbc.queryForObject("SELECT tableoid::regclass::text FROM event_deliveries WHERE delivery_id = 'delivery-old'", String.class))
+                .isEqualTo(partition("event_deliveries", expiredMonth));
+        assertThat(jdbc.queryForObject("SELECT pg_get_constraintdef(oid) FROM pg_constraint WHERE conname = 'events_pkey'", String.class))
+                .isEqualTo("PRIMARY KEY (id, created_at)");
+        assertThat(jdbc.queryForObject("SELECT event_id FROM alerts", UUID.class)).isEqualTo(oldEvent);
+
+        // Same delivery in another month, i.e. in another partition
+        assertThatThrownBy(() -> insertEvent(repositoryId, "delivery-old", current.atDay(2) + " 08:00:00+00"))
+                .isInstanceOf(DuplicateKeyException.class);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM events", Long.class)).isEqualTo(2);
+    }
+
+    @Test
+    void dropRemovesExpiredPartitionsOfEveryEventTable() {
+        database.migrate(null);
+        UUID repositoryId = insertRepository();
+        createPartitions(expiredMonth);
+        UUID oldEvent = insertEvent(repositoryId, "delivery-old", expiredMonth.atDay(3) + " 00:00:00+00");
+        insertEvent(repositoryId, "delivery-new", current.atDay(1) + " 00:00:00+00");
+        jdbc.update("INSERT INTO alerts (event_id, repository_id, rule_type, severity, message) VALUES (?, ?, 'TEST', 'INFO', 'old')",
+                oldEvent, repositoryId);
+        insertEventFile(repositoryId, oldEvent, expiredMonth.atDay(3) + " 00:00:00+00");
+        DashboardSummaryService dashboardSummaryService = mock(DashboardSummaryService.class);
+
+        service(PartitionMaintenanceServiceImpl.RetentionMode.DROP, dashboardSummaryService).maintain();
+
+        assertThat(exists(partition("events", expiredMonth))).isFalse();
+        assertThat(exists(partition("event_deliveries", expiredMonth))).isFalse();
+        assertThat(exists(partition("event_files", expiredMonth))).isFalse();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM events", Long.class)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM event_deliveries", Long.class)).isEqualTo(1);
+        // The alert outlives its event and keeps the dangling id
+        assertThat(jdbc.queryForObject("SELECT event_id FROM alerts", UUID.class)).isEqualTo(oldEvent);
+        for (String table : new String[]{"events", "event_deliveries", "event_files", "audit_logs"}) {
+            assertThat(exists(partition(table, current.plusMonths(1)))).as(table).isTrue();
+        }
+        verify(dashboardSummaryService).reconcile();
+    }
+
+    @Test
+    void detachKeepsExpiredPartitionsAsStandaloneTables() {
+        database.migrate(null);
+        UUID repositoryId = insertRepository();
+        createPartitions(expiredMonth);
+        insertEvent(repositoryId, "delivery-old", expiredMonth.atDay(3) + " 00:00:00+00");
+
+        service(PartitionMaintenanceServiceImpl.RetentionMode.DETACH, mock(DashboardSummaryService.class)).maintain();
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM events", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM event_deliveries", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM " + partition("events", expiredMonth), Long.class)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM " + partition("event_deliveries", expiredMonth), Long.class)).isEqualTo(1);
+        // A detached month no longer counts as a duplicate
+        insertEvent(repositoryId, "delivery-old", current.atDay(1) + " 00:00:00+00");
+    }
+
+    @Test
+    void deletingARepositoryRemovesItsDeliveries() {
+        database.migrate(null);
+        UUID repositoryId = insertRepository();
+        insertEvent(repositoryId, "delivery-1", current.atDay(1) + " 00:00:00+00");
+
+        jdbc.update("DELETE FROM repositories WHERE id = ?", repositoryId);
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM event_deliveries", Long.class)).isZero();
+        // The delivery can be received again for a new repository
+        insertEvent(insertRepository(), "delivery-1", current.atDay(1) + " 00:00:00+00");
+    }
+
+    private PartitionMaintenanceServiceImpl service(PartitionMaintenanceServiceImpl.RetentionMode mode, DashboardSummaryService dashboardSummaryService) {
+        PartitionMaintenanceServiceImpl service = new PartitionMaintenanceServiceImpl(jdbc,
+                new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())), dashboardSummaryService);
+        ReflectionTestUtils.setField(service, "monthsAhead", 1);
+        ReflectionTestUtils.setField(service, "retentionMode", mode);
+        ReflectionTestUtils.setField(service, "eventsRetentionMonths", 2);
+        ReflectionTestUtils.setField(service, "auditLogsRetentionMonths", 0);
+        return service;
+    }
+
+    private UUID insertRepository() {
+        UUID userId = jdbc.queryForObject("INSERT INTO users (name, email, github_id, matricula) VALUES ('Test', ?, ?, ?) RETURNING id",
+                UUID.class, UUID.randomUUID() + "@test", UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        return jdbc.queryForObject("INSERT INTO repositories (user_id, github_repo_id, name, owner, url) VALUES (?, ?, 'repo', 'owner', 'https://github.com/owner/repo') RETURNING id",
+                UUID.class, userId, "owner/" + UUID.randomUUID());
+    }
+
+    private UUID insertEvent(UUID repositoryId, String deliveryId, String createdAt) {
+        return jdbc.queryForObject("INSERT INTO events (repository_id, type, delivery_id, payload, created_at) "
+                        + "VALUES (?, 'PUSH', ?, '{}'::jsonb, ?::timestamptz) RETURNING id",
+                UUID.class, repositoryId, deliveryId, createdAt);
+    }
+
+    private void insertEventFile(UUID repositoryId, UUID eventId, String createdAt) {
+        Long pathId = jdbc.queryForObject("INSERT INTO file_paths (path) VALUES (?) RETURNING id", Long.class, "src/" + eventId);
+        jdbc.update("INSERT INTO event_files (path_id, repository_id, event_id, created_at, change_type) VALUES (?, ?, ?, ?::timestamptz, 'M')",
+                pathId, repositoryId, eventId, createdAt);
+    }
+
+    private void createPartitions(YearMonth month) {
+        for (String table : new String[]{"events", "event_deliveries", "event_files"}) {
+            jdbc.queryForObject("SELECT create_monthly_partition(?, ?::date)", String.class, table, month.atDay(1).toString());
+        }
+    }
+
+    private boolean exists(String table) {
+        return jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+    }
+
+    private String partition(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+}
@@ -0,0 +1,139 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.support.PostgresTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostgresSseBroadcastBusImplTest {
+
+    private PostgresTestDatabase database;
+    private TransactionTemplate transactionTemplate;
+    private final List<PostgresSseBroadcastBusImpl> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        database = PostgresTestDatabase.create();
+        database.migrate(null);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database.dataSource()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(PostgresSseBroadcastBusImpl::stop);
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void everyNodeReceivesEveryFrameInIdOrder() throws Exception {
+        List<Long> first = new ArrayList<>();
+        List<Long> second = new ArrayList<>();
+        PostgresSseBroadcastBusImpl a = node(first);
+        PostgresSseBroadcastBusImpl b = node(second);
+
+        int threads = 4;
+        int perThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                PostgresSseBroadcastBusImpl publisher = t % 2 == 0 ? a : b;
+                // Large frames go through sse_frames, the others inline
+                String data = t == 0 ? "\"" + "x".repeat(8000) + "\"" : "{}";
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        publisher.publish(null, "update", data);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        awaitSize(first, threads * perThread);
+        awaitSize(second, threads * perThread);
+        synchronized (first) {
+            assertThat(first).isSorted().doesNotHaveDuplicates();
+            synchronized (second) {
+                assertThat(second).isEqualTo(first);
+            }
+        }
+    }
+
+    @Test
+    void framesAreSentOnlyOnceTheCallerCommits() throws Exception {
+        List<Long> received = new ArrayList<>();
+        PostgresSseBroadcastBusImpl bus = node(received);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            bus.publish(UUID.randomUUID(), "update", "{}");
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> bus.publish(null, "update", "{}"));
+
+        awaitSize(received, 1);
+        Thread.sleep(500);
+        synchronized (received) {
+            assertThat(received).hasSize(1);
+        }
+    }
+
+    private PostgresSseBroadcastBusImpl node(List<Long> received) throws InterruptedException {
+        PostgresSseBroadcastBusImpl bus = new PostgresSseBroadcastBusImpl(database.jdbcTemplate(), new ObjectMapper(), transactionTemplate);
+        DriverManagerDataSource dataSource = (DriverManagerDataSource) database.dataSource();
+        ReflectionTestUtils.setField(bus, "listenUrl", dataSource.getUrl());
+        ReflectionTestUtils.setField(bus, "username", dataSource.getUsername());
+        ReflectionTestUtils.setField(bus, "password", dataSource.getPassword());
+        ReflectionTestUtils.setField(bus, "maxInlineBytes", 7000);
+        bus.onFrame((id, userId, type, data) -> {
+            synchronized (received) {
+                received.add(id);
+            }
+        });
+        bus.start();
+        nodes.add(bus);
+        // LISTEN is issued on the listener thread
+        Thread.sleep(1000);
+        return bus;
+    }
+
+    private static void awaitSize(List<Long> received, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (received) {
+                if (received.size() >= size) {
+                    return;
+                }
+            }
+            Thread.sleep(50);
+        }
+        synchronized (received) {
+            assertThat(received).hasSize(size);
+        }
+    }
+}
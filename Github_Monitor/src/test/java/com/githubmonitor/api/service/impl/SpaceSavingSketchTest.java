@@ -0,0 +1,104 @@
+package com.githubmonitor.api.service.impl;
+
+import com.githubmonitor.api.dto.HotspotReportDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void countsExactlyUntilFull() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(3);
+        sketch.offer("a", 2);
+        sketch.offer("b", 1);
+        sketch.offer("a", 1);
+
+        assertThat(sketch.floor()).isZero();
+        assertThat(SpaceSavingSketch.merge(List.of(sketch), 10))
+                .extracting(HotspotReportDTO.Hotspot::getPath, HotspotReportDTO.Hotspot::getChanges, HotspotReportDTO.Hotspot::getMaxOverestimate)
+                .containsExactly(tuple("a", 3L, 0L), tuple("b", 1L, 0L));
+    }
+
+    @Test
+    void newItemReplacesTheSmallestCounterAndInheritsItAsError() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer("a", 1);
+        sketch.offer("b", 1);
+        sketch.offer("b", 1);
+        sketch.offer("c", 1);
+
+        assertThat(sketch.floor()).isEqualTo(2);
+        assertThat(sketch.counters())
+                .extracting(counter -> counter.item, counter -> counter.count, counter -> counter.error)
+                .containsExactlyInAnyOrder(tuple("b", 2L, 0L), tuple("c", 2L, 1L));
+    }
+
+    @Test
+    void mergeAddsTheFloorOfEveryDayAnItemIsMissingFrom() {
+        // Not full: an item missing from it was never seen
+        SpaceSavingSketch first = new SpaceSavingSketch(2);
+        first.offer("a", 1);
+        first.offer("a", 1);
+        // Full: a was evicted by c, so it may have had up to the floor (1) there
+        SpaceSavingSketch second = new SpaceSavingSketch(2);
+        second.offer("a", 1);
+        second.offer("b", 1);
+        second.offer("c", 1);
+
+        assertThat(SpaceSavingSketch.merge(List.of(first, second), 10))
+                .extracting(HotspotReportDTO.Hotspot::getPath, HotspotReportDTO.Hotspot::getChanges, HotspotReportDTO.Hotspot::getMaxOverestimate)
+                .containsExactly(tuple("a", 3L, 1L), tuple("c", 2L, 1L), tuple("b", 1L, 0L));
+    }
+
+    @Test
+    void mergedCountsBoundTheTrueTotals() {
+        Random random = new Random(42);
+        Map<String, Long> truth = new HashMap<>();
+        List<SpaceSavingSketch> days = new ArrayList<>();
+        for (int day = 0; day < 7; day++) {
+            SpaceSavingSketch sketch = new SpaceSavingSketch(10);
+            for (int i = 0; i < 500; i++) {
+                // Skewed towards low ids, with the hot set drifting from day to day
+                String item = "f" + (int) (Math.pow(random.nextDouble(), 3) * 60 + day * 3) % 60;
+                long increment = 1 + random.nextInt(3);
+                sketch.offer(item, increment);
+                truth.merge(item, increment, Long::sum);
+            }
+            days.add(sketch);
+        }
+
+        List<HotspotReportDTO.Hotspot> merged = SpaceSavingSketch.merge(days, 1000);
+
+        assertThat(merged).isNotEmpty();
+        for (HotspotReportDTO.Hotspot hotspot : merged) {
+            long actual = truth.get(hotspot.getPath());
+            assertThat(hotspot.getChanges()).as(hotspot.getPath()).isGreaterThanOrEqualTo(actual);
+            assertThat(hotspot.getChanges() - hotspot.getMaxOverestimate()).as(hotspot.getPath()).isLessThanOrEqualTo(actual);
+        }
+        // Any item above the summed floors is reported
+        long floors = days.stream().mapToLong(SpaceSavingSketch::floor).sum();
+        truth.forEach((item, count) -> {
+            if (count > floors) {
+                assertThat(merged).extracting(HotspotReportDTO.Hotspot::getPath).contains(item);
+            }
+        });
+    }
+
+    @Test
+    void copyIsIndependent() {
+        SpaceSavingSketch sketch = new SpaceSavingSketch(2);
+        sketch.offer("a", 1);
+        SpaceSavingSketch copy = sketch.copy();
+        sketch.offer("a", 5);
+
+        assertThat(copy.counters()).extracting(counter -> counter.count).containsExactly(1L);
+    }
+}
@@ -0,0 +1,189 @@
+package com.githubmonitor.api.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.githubmonitor.api.service.SseBroadcastBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SseServiceImplTest {
+
+    private static final Pattern FRAME = Pattern.compile("id:(\\S+)\nevent:(\\S+)\n");
+
+    private SseServiceImpl service;
+    // Id of the last frame published before each test
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        LocalSseBroadcastBusImpl bus = new LocalSseBroadcastBusImpl();
+        base = (long) ReflectionTestUtils.getField(bus, "sequence");
+        service = service(bus);
+    }
+
+    private static SseServiceImpl service(SseBroadcastBus bus) {
+        SseServiceImpl service = new SseServiceImpl(new ObjectMapper(), bus);
+        ReflectionTestUtils.setField(service, "replayBufferSize", 3);
+        ReflectionTestUtils.setField(service, "coalesceWindowMs", 250L);
+        ReflectionTestUtils.setField(service, "coalesceMaxItems", 50);
+        service.init();
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void reconnectReplaysTheFramesAfterTheLastEventId() {
+        publish(3);
+
+        SseEmitter emitter = service.subscribe(id(1), false);
+
+        assertThat(frames(emitter)).containsExactly(id(2) + " update", id(3) + " update");
+    }
+
+    @Test
+    void newSubscriberWithoutLastEventIdOnlyGetsNewFrames() {
+        publish(2);
+
+        SseEmitter emitter = service.subscribe(null, false);
+        publish(1);
+
+        assertThat(frames(emitter)).containsExactly(id(3) + " update");
+    }
+
+    @Test
+    void idFromBeforeThisNodeStartedIsToldToResync() {
+        publish(2);
+
+        SseEmitter emitter = service.subscribe(Long.toString(base - 1), false);
+
+        assertThat(frames(emitter)).containsExactly(id(2) + " resync");
+    }
+
+    @Test
+    void idsFromTheBusResumeOnAnyNodeUnlessFramesWereMissed() {
+        SseBroadcastBus bus = mock(SseBroadcastBus.class);
+        SseServiceImpl node = service(bus);
+        ArgumentCaptor<SseBroadcastBus.FrameListener> listener = ArgumentCaptor.forClass(SseBroadcastBus.FrameListener.class);
+        verify(bus).onFrame(listener.capture());
+        try {
+            // 14 and 15 were published while this node was cut off from the bus
+            for (long id : new long[]{10, 11, 12, 13, 16, 17}) {
+                listener.getValue().accept(id, null, "update", "{}");
+            }
+
+            // A client coming from a node that did get them
+            assertThat(frames(node.subscribe("15", false))).containsExactly("16 update", "17 update");
+            assertThat(frames(node.subscribe("13", false))).containsExactly("17 resync");
+        } finally {
+            node.shutdown();
+        }
+    }
+
+    @Test
+    void gapLargerThanTheReplayBufferIsToldToResync() {
+        publish(5);
+
+        // Frames 3 to 5 are buffered, 2 is gone
+        assertThat(frames(service.subscribe(id(1), false))).containsExactly(id(5) + " resync");
+        assertThat(frames(service.subscribe(id(2), false))).containsExactly(id(3) + " update", id(4) + " update", id(5) + " update");
+    }
+
+    @Test
+    void reactiveStreamReplaysAndResyncsLikeTheEmitter() {
+        publish(5);
+
+        assertThat(service.stream(id(3), false).take(2).map(this::describe).collectList().block(Duration.ofSeconds(5)))
+                .containsExactly(id(4) + " update", id(5) + " update");
+        assertThat(service.stream(id(1), false).take(1).map(this::describe).collectList().block(Duration.ofSeconds(5)))
+                .containsExactly(id(5) + " resync");
+    }
+
+    @Test
+    void concurrentPublishersDeliverInIdOrder() throws Exception {
+        ReflectionTestUtils.setField(service, "replayBufferSize", 100_000);
+        SseEmitter emitter = service.subscribe(null, false);
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    publish(perThread);
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        List<String> frames = frames(emitter);
+        assertThat(frames).hasSize(threads * perThread);
+        for (int i = 0; i < frames.size(); i++) {
+            assertThat(frames.get(i)).isEqualTo(id(i + 1) + " update");
+        }
+    }
+
+    private void publish(int count) {
+        for (int i = 0; i < count; i++) {
+            service.sendUpdate("update", Map.of("n", i));
+        }
+    }
+
+    private String id(long sequence) {
+        return Long.toString(base + sequence);
+    }
+
+    private String describe(ServerSentEvent<String> event) {
+        return event.id() + " " + event.event();
+    }
+
+    // The emitter is never bound to a response here, so everything sent to it is still buffered, in order
+    @SuppressWarnings("unchecked")
+    private static List<String> frames(SseEmitter emitter) {
+        StringBuilder raw = new StringBuilder();
+        Set<ResponseBodyEmitter.DataWithMediaType> sent =
+                (Set<ResponseBodyEmitter.DataWithMediaType>) ReflectionTestUtils.getField(emitter, "earlySendAttempts");
+        synchronized (emitter) {
+            sent.forEach(part -> raw.append(part.getData()));
+        }
+        List<String> frames = new ArrayList<>();
+        Matcher matcher = FRAME.matcher(raw);
+        while (matcher.find()) {
+            frames.add(matcher.group(1) + " " + matcher.group(2));
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,78 @@
+package com.githubmonitor.api.support;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assumptions;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+/**
+ * A throwaway database for integration tests, created on the server given by TEST_DB_URL
+ * (e.g. jdbc:postgresql://localhost:5432/postgres?user=postgres) or on a shared Testcontainers Postgres.
+ * Tests are skipped when neither is available.
+ */
+public final class PostgresTestDatabase implements AutoCloseable {
+
+    private static PostgreSQLContainer<?> container;
+
+    private final DriverManagerDataSource admin;
+    private final DriverManagerDataSource dataSource;
+    private final String name;
+
+    private PostgresTestDatabase(String url, String username, String password) {
+        name = "gm_test_" + UUID.randomUUID().toString().replace("-", "");
+        admin = new DriverManagerDataSource(url, username, password);
+        new JdbcTemplate(admin).execute("CREATE DATABASE " + name);
+        dataSource = new DriverManagerDataSource(withDatabase(url, name), username, password);
+    }
+
+    public static PostgresTestDatabase create() {
+        String url = System.getenv("TEST_DB_URL");
+        if (url != null && !url.isBlank()) {
+            return new PostgresTestDatabase(url, null, null);
+        }
+        Assumptions.assumeTrue(DockerClientFactory.instance().isDockerAvailable(), "Needs TEST_DB_URL or Docker");
+        PostgreSQLContainer<?> postgres = sharedContainer();
+        return new PostgresTestDatabase(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    private static synchronized PostgreSQLContainer<?> sharedContainer() {
+        if (container == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+        }
+        return container;
+    }
+
+    private static String withDatabase(String url, String database) {
+        int query = url.indexOf('?');
+        String base = query < 0 ? url : url.substring(0, query);
+        return base.substring(0, base.lastIndexOf('/') + 1) + database + (query < 0 ? "" : url.substring(query));
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    // Applies the application's migrations up to the given version, or all of them when null
+    public void migrate(String targetVersion) {
+        var configuration = Flyway.configure().dataSource(dataSource);
+        if (targetVersion != null) {
+            configuration.target(targetVersion);
+        }
+        configuration.load().migrate();
+    }
+
+    @Override
+    public void close() {
+        new JdbcTemplate(admin).execute("DROP DATABASE IF EXISTS " + name + " WITH (FORCE)");
+    }
+}